@@ -0,0 +1,147 @@
+package unix.api;
+
+import java.io.IOException;
+
+import unix.util.FileInfo;
+
+/*
+ * Entry
+ * One entry of a Listing: immutable, attributes as primitive fields (times in epoch milliseconds, ids as numbers).
+ * Owner and group names aren't resolved, getUid/getGid give the ids.
+ */
+public final class Entry
+{
+	public enum Type
+	{
+		FILE, DIRECTORY, SYMLINK, OTHER
+	}
+
+	//File-type bits of st_mode
+	private static final int S_IFMT = 0170000;
+	private static final int S_IFREG = 0100000;
+
+	private final String name;
+	private final String path;
+	private final Type type;
+	private final int mode;
+	private final long size;
+	private final long modified;
+	private final long accessed;
+	private final long changed;
+	private final int uid;
+	private final int gid;
+	private final int nlink;
+	private final long inode;
+	private final long device;
+	//Target as written in the link, null for other entries
+	private final String linkTarget;
+
+	private Entry(String name, String path, Type type, int mode, long size, long modified, long accessed, long changed,
+			int uid, int gid, int nlink, long inode, long device, String linkTarget)
+	{
+		this.name = name;
+		this.path = path;
+		this.type = type;
+		this.mode = mode;
+		this.size = size;
+		this.modified = modified;
+		this.accessed = accessed;
+		this.changed = changed;
+		this.uid = uid;
+		this.gid = gid;
+		this.nlink = nlink;
+		this.inode = inode;
+		this.device = device;
+		this.linkTarget = linkTarget;
+	}
+
+	/*
+	 * Snapshot of file, attributes: false to keep only the name and path (nothing is read)
+	 */
+	static Entry of(FileInfo file, boolean attributes)
+	{
+		String path = file.getPath().toString();
+		if(!attributes) return new Entry(file.getName(), path, null, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, null);
+
+		boolean link;
+		String target = null;
+		try {
+			link = file.isSymLink();
+			if(link) target = file.getSymLink();
+		} catch(IOException e) { link = false; }
+
+		int mode = file.getMode();
+		Type type = link ? Type.SYMLINK
+				: file.isDirectory() ? Type.DIRECTORY
+				: mode == 0 || (mode & S_IFMT) == S_IFREG ? Type.FILE
+				: Type.OTHER;
+
+		return new Entry(file.getName(), path, type, mode, file.getLength(), file.getLastModifiedMillis(), file.getLastAccessedMillis(),
+				file.getLastChangedMillis(), file.getUid(), file.getGid(), file.getNlink(), file.getInode(), file.getDevice(), target);
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public String getName() {
+		return name;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	// null with Listing.namesOnly()
+	public Type getType() {
+		return type;
+	}
+
+	public int getMode() {
+		return mode;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getModified() {
+		return modified;
+	}
+
+	public long getAccessed() {
+		return accessed;
+	}
+
+	public long getChanged() {
+		return changed;
+	}
+
+	public int getUid() {
+		return uid;
+	}
+
+	public int getGid() {
+		return gid;
+	}
+
+	public int getNlink() {
+		return nlink;
+	}
+
+	public long getInode() {
+		return inode;
+	}
+
+	public long getDevice() {
+		return device;
+	}
+
+	public String getLinkTarget() {
+		return linkTarget;
+	}
+	/************************************************************************************************************************/
+
+	@Override
+	public String toString()
+	{
+		return this.type + " " + this.name + (this.linkTarget != null ? " -> " + this.linkTarget : "") + " (" + this.size + " bytes)";
+	}
+}
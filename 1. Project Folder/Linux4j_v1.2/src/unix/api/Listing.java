@@ -0,0 +1,332 @@
+package unix.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import unix.core.command.ls.LsNameFilter;
+import unix.core.command.ls.LsSorter;
+import unix.core.command.ls.LsSorter.SortKey;
+import unix.util.AttributeLoader;
+import unix.util.FileAttribute;
+import unix.util.FileInfo;
+import unix.util.LinkResolver;
+
+/*
+ * Listing
+ * The ls listing for in-process callers: structured entries instead of text, no CommandParser, no formatting.
+ *
+ * 		try(Stream<Entry> entries = Listing.of("/var/log").glob("*.gz").type(Entry.Type.FILE)
+ * 				.sortBy(Listing.Sort.SIZE).limit(20).stream())
+ * 		{
+ * 			entries.forEach(entry -> ...);
+ * 		}
+ *
+ * Same rules as ls: hidden entries are skipped unless all(), name filters are applied to the raw names while the directory
+ * is read (rejected entries are never stat-ed), the sorts are the ones of ls (-v, -S, -t, ... with ties by name).
+ * 		- unsorted: the stream is lazy, entries are read one by one while it's consumed (millions of entries, constant memory)
+ * 		- sorted: the directory is read when the stream is consumed, with limit(N) it's stat-ed and filtered in batches
+ * 		  that feed a bounded heap: only the N best entries and one batch are ever retained
+ * The implied . and .. are never listed. The stream holds the open directory: close it (try-with-resources).
+ */
+public class Listing
+{
+	public enum Sort
+	{
+		NONE, NAME, VERSION, SIZE, MODIFIED, ACCESSED, CHANGED, EXTENSION
+	}
+
+	private static final Set<FileAttribute> NAME_ONLY = EnumSet.noneOf(FileAttribute.class);
+
+	//limit(): entries stat-ed together (in parallel) before they reach the heap
+	private static final int BATCH = 1024;
+
+	private final Path directory;
+	private final List<Predicate<String>> nameFilters;
+	private final List<Predicate<Entry>> filters;
+	private final LsSorter sorter;
+	private boolean hidden;
+	private boolean attributes;
+	private boolean followLinks;
+	private int limit;
+
+	private Listing(Path directory)
+	{
+		super();
+		this.directory = directory;
+		this.nameFilters = new ArrayList<Predicate<String>>();
+		this.filters = new ArrayList<Predicate<Entry>>();
+		this.sorter = new LsSorter();
+		this.hidden = false;
+		this.attributes = true;
+		this.followLinks = false;
+		this.limit = 0;
+	}
+
+	public static Listing of(String directory)
+	{
+		return new Listing(Paths.get(directory));
+	}
+
+	public static Listing of(Path directory)
+	{
+		return new Listing(directory);
+	}
+
+	/***************************************************NAME-FILTERS****************************************************************/
+	// -a: entries starting with . too
+	public Listing all()
+	{
+		this.hidden = true;
+		return this;
+	}
+
+	// -B: no backups (ending with ~)
+	public Listing ignoreBackups()
+	{
+		return this.name(LsNameFilter::notBackup);
+	}
+
+	// ls *.log : * ? [classes] {braces}
+	public Listing glob(String pattern)
+	{
+		return this.name(LsNameFilter.glob(pattern));
+	}
+
+	// Any test on the name only (no stat for the rejected entries)
+	public Listing name(Predicate<String> filter)
+	{
+		this.nameFilters.add(filter);
+		return this;
+	}
+	/******************************************************************************************************************************/
+
+	/*************************************************ATTRIBUTE-FILTERS*************************************************************/
+	public Listing type(Entry.Type type)
+	{
+		return this.filter(entry -> entry.getType() == type);
+	}
+
+	// size in bytes, bounds included
+	public Listing minSize(long bytes)
+	{
+		return this.filter(entry -> entry.getSize() >= bytes);
+	}
+
+	public Listing maxSize(long bytes)
+	{
+		return this.filter(entry -> entry.getSize() <= bytes);
+	}
+
+	// modification time in epoch milliseconds, bounds excluded
+	public Listing modifiedAfter(long millis)
+	{
+		return this.filter(entry -> entry.getModified() > millis);
+	}
+
+	public Listing modifiedBefore(long millis)
+	{
+		return this.filter(entry -> entry.getModified() < millis);
+	}
+
+	public Listing filter(Predicate<Entry> filter)
+	{
+		this.filters.add(filter);
+		return this;
+	}
+	/******************************************************************************************************************************/
+
+	/*******************************************************ORDER*******************************************************************/
+	public Listing sortBy(Sort sort)
+	{
+		switch(sort)
+		{
+			case NAME:		this.sorter.setKey(SortKey.NAME); break;
+			case VERSION:	this.sorter.setKey(SortKey.VERSION); break;
+			case SIZE:		this.sorter.setKey(SortKey.SIZE); break;
+			case MODIFIED:	this.sorter.setKey(SortKey.MODIFICATION_TIME); break;
+			case ACCESSED:	this.sorter.setKey(SortKey.ACCESS_TIME); break;
+			case CHANGED:	this.sorter.setKey(SortKey.CHANGE_TIME); break;
+			case EXTENSION:	this.sorter.setKey(SortKey.EXTENSION); break;
+			default:		this.sorter.setKey(SortKey.NONE); break;
+		}
+		return this;
+	}
+
+	// -r
+	public Listing reverse()
+	{
+		this.sorter.setReverse(true);
+		return this;
+	}
+
+	// --group-directories-first
+	public Listing directoriesFirst()
+	{
+		this.sorter.setDirectoriesFirst(true);
+		return this;
+	}
+
+	// Top-K: the first n entries (of the sorted listing), 0 for all
+	public Listing limit(int n)
+	{
+		this.limit = n;
+		return this;
+	}
+	/******************************************************************************************************************************/
+
+	/****************************************************ATTRIBUTES*****************************************************************/
+	// -L: links have the attributes of their target
+	public Listing followLinks()
+	{
+		this.followLinks = true;
+		return this;
+	}
+
+	// Names and paths only, nothing is stat-ed (the other fields of the entries stay 0, no attribute filter or sort)
+	public Listing namesOnly()
+	{
+		this.attributes = false;
+		return this;
+	}
+	/******************************************************************************************************************************/
+
+	/*
+	 * Entries of the directory, the directory is opened right away (IOException if it can't be listed)
+	 */
+	public Stream<Entry> stream() throws IOException
+	{
+		if(!this.attributes && (!this.filters.isEmpty() || this.sorter.isActive() || this.followLinks))
+			throw new IllegalStateException("namesOnly() can't be filtered, sorted or dereferenced on attributes");
+
+		LsNameFilter names = new LsNameFilter();
+		if(!this.hidden) names.add(LsNameFilter::visible);
+		for(Predicate<String> filter: this.nameFilters) names.add(filter);
+
+		Set<FileAttribute> demand = this.attributes ? EnumSet.of(FileAttribute.STAT) : NAME_ONLY;
+		LinkResolver resolver = this.followLinks ? new LinkResolver(demand) : null;
+		Predicate<Entry> accepted = entry -> {
+			for(Predicate<Entry> filter: this.filters)
+				if(!filter.test(entry)) return false;
+			return true;
+		};
+
+		DirectoryStream<Path> paths = Files.newDirectoryStream(this.directory, names);
+		Stream<Entry> entries;
+		if(!this.sorter.isActive())
+		{
+			//Lazy: one entry read (and stat-ed) per element pulled
+			entries = StreamSupport.stream(paths.spliterator(), false).map(path -> {
+				FileInfo file = new FileInfo(path, false, demand);
+				return Entry.of(resolver != null ? resolver.resolve(file) : file, this.attributes);
+			}).filter(accepted);
+			if(this.limit > 0) entries = entries.limit(this.limit);
+		}
+		else
+		{
+			//Read and sorted when the stream is consumed
+			entries = StreamSupport.stream(() -> this.sorted(paths, demand, resolver, accepted).spliterator(),
+					Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE, false);
+		}
+
+		return entries.onClose(() -> {
+			try { paths.close(); } catch(IOException e) { throw new UncheckedIOException(e); }
+		});
+	}
+
+	/*
+	 * Every accepted entry (attributes loaded in parallel for big directories), sorted, or only the first limit ones
+	 */
+	private List<Entry> sorted(DirectoryStream<Path> paths, Set<FileAttribute> demand, LinkResolver resolver, Predicate<Entry> accepted)
+	{
+		List<FileInfo> ordered;
+		if(this.limit > 0)
+		{
+			//Pulled batch by batch by the heap: the directory is never held whole
+			Iterable<FileInfo> files = () -> new Batches(paths.iterator(), demand, resolver, accepted);
+			ordered = this.sorter.top(files, this.limit);
+		}
+		else
+		{
+			ArrayList<FileInfo> files = new ArrayList<FileInfo>();
+			for(Path path: paths) files.add(new FileInfo(path, false, NAME_ONLY));
+			this.prepare(files, demand, resolver, accepted);
+			ordered = this.sorter.sort(files);
+		}
+		List<Entry> entries = new ArrayList<Entry>(ordered.size());
+		for(FileInfo file: ordered) entries.add(Entry.of(file, true));
+		return entries;
+	}
+
+	/*
+	 * Attributes of files loaded, links resolved, and the entries rejected by the attribute filters removed
+	 */
+	private void prepare(List<FileInfo> files, Set<FileAttribute> demand, LinkResolver resolver, Predicate<Entry> accepted)
+	{
+		AttributeLoader.getDefault().load(files, demand);
+		if(resolver != null) resolver.resolveAll(files);
+		if(!this.filters.isEmpty()) files.removeIf(file -> !accepted.test(Entry.of(file, true)));
+	}
+
+
+
+	/*
+	 * Accepted entries of the directory, read and stat-ed BATCH entries at a time
+	 */
+	private final class Batches implements Iterator<FileInfo>
+	{
+		private final Iterator<Path> paths;
+		private final Set<FileAttribute> demand;
+		private final LinkResolver resolver;
+		private final Predicate<Entry> accepted;
+		private final ArrayList<FileInfo> batch;
+		private int next;
+
+		Batches(Iterator<Path> paths, Set<FileAttribute> demand, LinkResolver resolver, Predicate<Entry> accepted)
+		{
+			this.paths = paths;
+			this.demand = demand;
+			this.resolver = resolver;
+			this.accepted = accepted;
+			this.batch = new ArrayList<FileInfo>(BATCH);
+			this.next = 0;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			//Batches where every entry was filtered out are skipped
+			while(this.next == this.batch.size() && this.paths.hasNext())
+			{
+				this.batch.clear();
+				this.next = 0;
+				while(this.batch.size() < BATCH && this.paths.hasNext()) this.batch.add(new FileInfo(this.paths.next(), false, NAME_ONLY));
+				Listing.this.prepare(this.batch, this.demand, this.resolver, this.accepted);
+			}
+			return this.next < this.batch.size();
+		}
+
+		@Override
+		public FileInfo next()
+		{
+			if(!this.hasNext()) throw new NoSuchElementException();
+			//Released from the batch: only the heap holds it now
+			FileInfo file = this.batch.get(this.next);
+			this.batch.set(this.next++, null);
+			return file;
+		}
+	}
+}
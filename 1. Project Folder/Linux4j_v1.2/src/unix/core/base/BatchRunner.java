@@ -0,0 +1,132 @@
+package unix.core.base;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * BatchRunner
+ * Non-interactive execution of a script [file or stdin]: no prompt, one Shell on a warm JVM, one buffered output
+ * flushed when full (not after every command).
+ * 		- the lines are read and parsed ahead: a line repeated in the script is parsed once
+ * 		- blank lines and lines starting with # are skipped
+ * 		- the first failing command stops the script, or with keepGoing every command runs and the failures are summarized
+ */
+public class BatchRunner implements Closeable
+{
+	private final Shell shell;
+	private final PrintWriter out;
+	private final boolean keepGoing;
+
+	private int executed;
+	private final List<String> failures;
+	private long elapsedNanos;
+
+	/*
+	 * out: output of every command (and of their error messages, in order)
+	 */
+	public BatchRunner(PrintWriter out, boolean keepGoing)
+	{
+		super();
+		this.out = out;
+		this.shell = new Shell(out);
+		this.keepGoing = keepGoing;
+		this.failures = new ArrayList<String>();
+	}
+
+	/*
+	 * Run every command of script, true if none failed
+	 */
+	public boolean run(BufferedReader script) throws Exception
+	{
+		long start = System.nanoTime();
+
+		//Parse ahead, plans are independent of the current directory: one plan per distinct line
+		List<String> lines = new ArrayList<String>();
+		List<Integer> lineNumbers = new ArrayList<Integer>();
+		Map<String, CommandPlan> parsed = new HashMap<String, CommandPlan>();
+		List<CommandPlan> plans = new ArrayList<CommandPlan>();
+		String line;
+		for(int number = 1; (line = script.readLine()) != null; number++)
+		{
+			String command = line.trim();
+			if(command.isEmpty() || command.charAt(0) == '#') continue;
+
+			CommandPlan plan = parsed.get(line);
+			if(plan == null && !parsed.containsKey(line))
+			{
+				//An invalid line is executed as a line, the Shell reports its error in order
+				try { plan = new CommandPlan(line); }
+				catch(IllegalArgumentException e) { plan = null; }
+				parsed.put(line, plan);
+			}
+			lines.add(line);
+			lineNumbers.add(number);
+			plans.add(plan);
+		}
+
+		try
+		{
+			for(int i=0; i<plans.size(); i++)
+			{
+				CommandPlan plan = plans.get(i);
+				boolean success = plan != null ? this.shell.execute(plan) : this.shell.execute(lines.get(i));
+				this.executed++;
+				if(success) continue;
+
+				this.failures.add("line " + lineNumbers.get(i) + ": " + lines.get(i));
+				if(!this.keepGoing) break;
+			}
+		}
+		finally
+		{
+			this.out.flush();
+			this.elapsedNanos = System.nanoTime() - start;
+		}
+		return this.failures.isEmpty();
+	}
+
+	/*
+	 * Throughput of the run, followed by the failed commands
+	 */
+	public String report()
+	{
+		StringBuilder report = new StringBuilder();
+		double millis = this.elapsedNanos / 1e6;
+		long perSecond = this.elapsedNanos > 0 ? Math.round(this.executed * 1e9 / this.elapsedNanos) : 0;
+		report.append("batch: ").append(this.executed).append(" commands in ").append(String.format("%.1f", millis))
+				.append(" ms (").append(perSecond).append(" commands/s), ").append(this.failures.size()).append(" failed");
+		for(String failure: this.failures) report.append(System.lineSeparator()).append("  ").append(failure);
+		return report.toString();
+	}
+
+	// Release the resources of the Shell [directory watches]
+	@Override
+	public void close()
+	{
+		this.shell.close();
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public Shell getShell() {
+		return shell;
+	}
+
+	public int getExecuted() {
+		return executed;
+	}
+
+	public List<String> getFailures() {
+		return failures;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	/************************************************************************************************************************/
+}
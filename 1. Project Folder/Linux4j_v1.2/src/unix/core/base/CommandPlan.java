@@ -0,0 +1,123 @@
+package unix.core.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import unix.core.command.cd.CdArguments;
+import unix.core.command.du.DuArguments;
+import unix.core.command.find.FindArguments;
+import unix.core.command.locate.LocateArguments;
+import unix.core.command.ls.LsArguments;
+import unix.core.command.ls.LsOptions;
+import unix.core.command.updatedb.UpdatedbArguments;
+
+/*
+ * CommandPlan
+ * A command line tokenized [CommandType, Short-Options, Long-Options, 2nd-Argument] and its options resolved, ONCE.
+ * Immutable: the same plan is reused every time the line is typed again (see CommandPlanCache).
+ * Only the 2nd-Argument is resolved at each execution: files and glob matches change between two commands.
+ */
+public final class CommandPlan
+{
+	private final String commandLine;
+	private final String commandType;
+	private final List<String> options;
+	private final List<String> secondArgument;
+
+	//Every argument in the order typed [find: its expression is made of options and operands]
+	private final List<String> tokens;
+
+	//LS-Options resolved from options (ls only)
+	private final LsOptions lsOptions;
+
+	public CommandPlan(String commandLine)
+	{
+		super();
+		this.commandLine = commandLine;
+
+		// GET The CommandType [ls, cd, cat, echo, pwd] and the ARGUMENTS LINE (Options + 2nd-Argument)
+		int space = commandLine.indexOf(' ');
+		this.commandType = (space < 0 ? commandLine : commandLine.substring(0, space)).toLowerCase();
+
+		// Extract [Short-Options, Long-Options, 2nd-Argument] in one pass, empty entries are skipped
+		// (Long-Options first, then every single Short-Option : ls -lA --all --> all, l, A)
+		ArrayList<String> longOptions = new ArrayList<String>();
+		ArrayList<String> shortOptions = new ArrayList<String>();
+		ArrayList<String> secondArgument = new ArrayList<String>();
+		ArrayList<String> tokens = new ArrayList<String>();
+		int length = commandLine.length();
+		for(int start = space < 0 ? length : space + 1; start < length; )
+		{
+			int end = commandLine.indexOf(' ', start);
+			if(end < 0) end = length;
+			if(end > start) tokens.add(commandLine.substring(start, end));
+
+			if(end - start > 1 && commandLine.charAt(start) == '-' && commandLine.charAt(start + 1) == '-')
+			{
+				if(end - start > 2) longOptions.add(commandLine.substring(start + 2, end));
+			}
+			else if(end > start && commandLine.charAt(start) == '-')
+			{
+				for(int i = start + 1; i < end; i++) shortOptions.add(String.valueOf(commandLine.charAt(i)));
+			}
+			else if(end > start) secondArgument.add(commandLine.substring(start, end));
+
+			start = end + 1;
+		}
+		longOptions.addAll(shortOptions);
+
+		this.options = Collections.unmodifiableList(longOptions);
+		this.secondArgument = Collections.unmodifiableList(secondArgument);
+		this.tokens = Collections.unmodifiableList(tokens);
+
+		// Invalid options are reported here, before the plan can be cached
+		this.lsOptions = this.commandType.equals("ls") ? LsOptions.parse(this.options) : null;
+	}
+
+	/*
+	 * Arguments of the command, with the 2nd-Argument resolved from currentDirectory (null for an unknown command)
+	 */
+	public Arguments arguments(String currentDirectory) throws Exception
+	{
+		// ArgumentHandler for LS-Command => Handle the Arguments by LS-Standards and Requirements
+		if(this.commandType.equals("ls")) return new LsArguments(currentDirectory, this.lsOptions, new ArrayList<String>(this.secondArgument));
+
+		// ArgumentHandler for CD-Command => Handle the Arguments by LS-Standards and Requirements
+		if(this.commandType.equals("cd")) return new CdArguments(currentDirectory, new ArrayList<String>(this.secondArgument));
+
+		// ArgumentHandler for LOCATE/UPDATEDB-Commands => patterns and roots, their options are read by the arguments
+		if(this.commandType.equals("locate")) return new LocateArguments(currentDirectory, this.options, new ArrayList<String>(this.secondArgument));
+		if(this.commandType.equals("updatedb")) return new UpdatedbArguments(currentDirectory, this.options, new ArrayList<String>(this.secondArgument));
+
+		// ArgumentHandler for DU-Command => files and directories to measure
+		if(this.commandType.equals("du")) return new DuArguments(currentDirectory, this.options, new ArrayList<String>(this.secondArgument));
+
+		// ArgumentHandler for FIND-Command => starting points and expression, in the order typed
+		if(this.commandType.equals("find")) return new FindArguments(currentDirectory, this.tokens);
+
+		return null;
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public String getCommandLine() {
+		return commandLine;
+	}
+
+	public String getCommandType() {
+		return commandType;
+	}
+
+	public List<String> getOptions() {
+		return options;
+	}
+
+	public List<String> getSecondArgument() {
+		return secondArgument;
+	}
+
+	public List<String> getTokens() {
+		return tokens;
+	}
+	/************************************************************************************************************************/
+}
@@ -0,0 +1,106 @@
+package unix.core.base;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * CommandPlanCache
+ * Parsed command lines, keyed by command line and current directory: a line typed again skips the tokenizing
+ * and the option resolution. Least recently used plans are dropped first.
+ *
+ * Configuration (system property):
+ * 		linux4j.plans		maximum number of plans kept (default 256, 0 disables the cache)
+ */
+public class CommandPlanCache
+{
+	public static final int MAX_PLANS = Integer.getInteger("linux4j.plans", 256);
+
+	private final int maxPlans;
+	//Access order: the eldest entry is the least recently used
+	private final LinkedHashMap<String, CommandPlan> plans;
+
+	private long hits;
+	private long misses;
+
+	public CommandPlanCache()
+	{
+		this(MAX_PLANS);
+	}
+
+	public CommandPlanCache(final int maxPlans)
+	{
+		super();
+		this.maxPlans = maxPlans;
+		this.plans = new LinkedHashMap<String, CommandPlan>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CommandPlan> eldest)
+			{
+				return this.size() > maxPlans;
+			}
+		};
+	}
+
+	/*
+	 * Plan of commandLine typed in currentDirectory, parsed on the first use
+	 * (an invalid line throws, and is parsed again the next time)
+	 */
+	public CommandPlan get(String commandLine, String currentDirectory)
+	{
+		if(this.maxPlans <= 0) return new CommandPlan(commandLine);
+
+		//A line can't hold a line break: no key collision
+		String key = currentDirectory + '\n' + commandLine;
+		synchronized(this)
+		{
+			CommandPlan plan = this.plans.get(key);
+			if(plan != null)
+			{
+				this.hits++;
+				return plan;
+			}
+			this.misses++;
+		}
+
+		CommandPlan plan = new CommandPlan(commandLine);
+		synchronized(this)
+		{
+			this.plans.put(key, plan);
+		}
+		return plan;
+	}
+
+	public synchronized void clear()
+	{
+		this.plans.clear();
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized int getSize() {
+		return this.plans.size();
+	}
+
+	// hits / lookups, 0 before the first lookup
+	public synchronized double getHitRate() {
+		long lookups = this.hits + this.misses;
+		return lookups == 0 ? 0 : (double) this.hits / lookups;
+	}
+	/************************************************************************************************************************/
+
+	@Override
+	public synchronized String toString()
+	{
+		return "plan cache: " + this.plans.size() + " plans, " + this.hits + " hits, " + this.misses + " misses ("
+				+ Math.round(this.getHitRate() * 100) + "% hit rate)";
+	}
+}
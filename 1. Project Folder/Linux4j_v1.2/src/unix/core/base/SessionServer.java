@@ -0,0 +1,275 @@
+package unix.core.base;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import unix.util.ListingCache;
+
+/*
+ * SessionServer
+ * Many users and jobs on ONE warm JVM: every connection to the loopback port is a session with its own Shell
+ * (current directory, console), running on its own thread. The sessions share what is safe to share:
+ * 		- the directory snapshots (ListingCache) and the parsed command lines (CommandPlanCache), both synchronized
+ * 		- the owner/group names (PrincipalCache) and the attribute loader, process-wide already
+ * A session works like the interactive shell: a prompt, one command per line, "exit" (or closing the connection) ends it.
+ *
+ * Every command runs with the rights of the server's owner, and any local account can connect to a loopback port:
+ * a client has to send the secret of the server as its first line. The secret is random, written to a file only the
+ * owner can read [~/.linux4j/session-PORT.token, mode 0600], and deleted when the server is closed.
+ * A client that doesn't send it within 10 seconds, or sends anything else, is disconnected.
+ *
+ * Configuration (system property):
+ * 		linux4j.sessions		maximum number of open sessions (default 1024), the others are refused
+ * 		linux4j.sessions.dir	directory of the secret files (default ~/.linux4j)
+ */
+public class SessionServer implements Closeable
+{
+	public static final int MAX_SESSIONS = Integer.getInteger("linux4j.sessions", 1024);
+	public static final String TOKEN_DIRECTORY = System.getProperty("linux4j.sessions.dir",
+			System.getProperty("user.home") + File.separator + ".linux4j");
+
+	//Time given to a client to send the secret
+	private static final int AUTHENTICATION_TIMEOUT = 10 * 1000;
+
+	private final ServerSocket server;
+	private final ExecutorService sessions;
+	private final Set<Socket> connections;
+	private final int maxSessions;
+	//Secret of this server, and the file it's written to
+	private final byte[] token;
+	private final Path tokenFile;
+
+	//Shared by every session
+	private final ListingCache listingCache;
+	private final CommandPlanCache planCache;
+
+	private final AtomicLong opened;
+	private final AtomicLong commands;
+
+	/*
+	 * port: loopback port to listen on (0 for any free port, see getPort)
+	 */
+	public SessionServer(int port) throws IOException
+	{
+		this(port, MAX_SESSIONS);
+	}
+
+	public SessionServer(int port, int maxSessions) throws IOException
+	{
+		super();
+		this.server = new ServerSocket();
+		this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 128);
+		this.maxSessions = maxSessions;
+		try
+		{
+			String token = newToken();
+			this.token = token.getBytes(StandardCharsets.UTF_8);
+			this.tokenFile = Paths.get(TOKEN_DIRECTORY, "session-" + this.server.getLocalPort() + ".token");
+			writeToken(this.tokenFile, token);
+		}
+		catch(IOException | RuntimeException e)
+		{
+			this.server.close();
+			throw e;
+		}
+		this.connections = ConcurrentHashMap.newKeySet();
+		this.listingCache = new ListingCache();
+		this.planCache = new CommandPlanCache();
+		this.opened = new AtomicLong();
+		this.commands = new AtomicLong();
+
+		//Sessions are mostly idle, waiting for their next line: a thread each, created on demand
+		final AtomicInteger count = new AtomicInteger();
+		this.sessions = Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "linux4j-session-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/*
+	 * Accept sessions until the server is closed
+	 */
+	public void serve() throws IOException
+	{
+		while(!this.server.isClosed())
+		{
+			Socket socket;
+			try { socket = this.server.accept(); }
+			catch(SocketException e) { if(this.server.isClosed()) return; throw e; }
+
+			if(this.connections.size() >= this.maxSessions)
+			{
+				try(Socket refused = socket)
+				{
+					refused.getOutputStream().write(("linux4j: too many sessions" + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+				} catch(IOException e) {}
+				continue;
+			}
+
+			this.connections.add(socket);
+			this.opened.incrementAndGet();
+			this.sessions.execute(() -> this.session(socket));
+		}
+	}
+
+	/*
+	 * One session: its own Shell, the console is the connection (flushed after every command, for the prompt)
+	 */
+	private void session(Socket socket)
+	{
+		try(Socket connection = socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+				PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8), 1 << 16), false))
+		{
+			connection.setTcpNoDelay(true);
+
+			//The secret first, nothing is shown before
+			connection.setSoTimeout(AUTHENTICATION_TIMEOUT);
+			String secret = in.readLine();
+			if(secret == null || !MessageDigest.isEqual(secret.trim().getBytes(StandardCharsets.UTF_8), this.token))
+			{
+				out.println("linux4j: authentication failed");
+				out.flush();
+				return;
+			}
+			connection.setSoTimeout(0);
+
+			Shell shell = new Shell(out, this.listingCache, this.planCache, false);
+
+			String commandLine;
+			while(true)
+			{
+				out.print(shell.getCurrentDirectory() + ">");
+				out.flush();
+				if((commandLine = in.readLine()) == null || commandLine.trim().equals("exit")) break;
+
+				shell.execute(commandLine);
+				this.commands.incrementAndGet();
+			}
+		}
+		catch(Exception e) {} //Connection lost: the session ends
+		finally
+		{
+			this.connections.remove(socket);
+		}
+	}
+
+	/*
+	 * Stop accepting, close every session
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.server.close();
+		for(Socket connection: this.connections)
+		{
+			try { connection.close(); } catch(IOException e) {}
+		}
+		this.sessions.shutdown();
+		try { this.sessions.awaitTermination(5, TimeUnit.SECONDS); }
+		catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+		this.listingCache.close();
+		Files.deleteIfExists(this.tokenFile);
+	}
+
+	/*
+	 * 256 random bits, in hexadecimal
+	 */
+	private static String newToken()
+	{
+		byte[] bytes = new byte[32];
+		new SecureRandom().nextBytes(bytes);
+		StringBuilder token = new StringBuilder(64);
+		for(byte b: bytes) token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		return token.toString();
+	}
+
+	/*
+	 * The file is created readable by its owner only [0600] before the secret is written to it
+	 * (DOS-environment: no POSIX permissions, the file is restricted to its owner with the File flags)
+	 */
+	private static void writeToken(Path file, String token) throws IOException
+	{
+		Files.createDirectories(file.getParent());
+		Files.deleteIfExists(file);
+		try
+		{
+			Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		}
+		catch(UnsupportedOperationException e)
+		{
+			Files.createFile(file);
+			File restricted = file.toFile();
+			restricted.setReadable(false, false);
+			restricted.setReadable(true, true);
+			restricted.setWritable(false, false);
+			restricted.setWritable(true, true);
+		}
+		Files.write(file, (token + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public int getPort() {
+		return this.server.getLocalPort();
+	}
+
+	// File holding the secret a client sends first
+	public Path getTokenFile() {
+		return tokenFile;
+	}
+
+	public int getActiveSessions() {
+		return this.connections.size();
+	}
+
+	public long getOpenedSessions() {
+		return opened.get();
+	}
+
+	public long getCommands() {
+		return commands.get();
+	}
+
+	public ListingCache getListingCache() {
+		return listingCache;
+	}
+
+	public CommandPlanCache getPlanCache() {
+		return planCache;
+	}
+	/************************************************************************************************************************/
+
+	@Override
+	public String toString()
+	{
+		return "session server: " + this.server.getInetAddress().getHostAddress() + ":" + this.getPort() + " (secret in " + this.tokenFile + "), "
+				+ this.getActiveSessions() + " active sessions, "
+				+ this.getOpenedSessions() + " opened, " + this.getCommands() + " commands";
+	}
+}
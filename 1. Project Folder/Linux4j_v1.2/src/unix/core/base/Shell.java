@@ -1,40 +1,127 @@
 package unix.core.base;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 
 import unix.core.command.cd.CdCommandBuilder;
+import unix.core.command.du.DuCommandBuilder;
+import unix.core.command.find.FindCommandBuilder;
+import unix.core.command.locate.LocateCommandBuilder;
 import unix.core.command.ls.LsCommandBuilder;
+import unix.core.command.updatedb.UpdatedbCommandBuilder;
+import unix.util.ConsoleStream;
+import unix.util.ListingCache;
 
-public class Shell 
+public class Shell implements Closeable
 {
 	String currentDirectory;
+	
+	//Directory snapshots reused by the commands of this session (closed with the Shell if it's its own)
+	private final ListingCache listingCache;
+	private final boolean ownListingCache;
+	
+	//Parsed command lines, a line typed again isn't parsed again
+	private final CommandPlanCache planCache;
+	
+	//Console shared by the commands [batch mode, session], flushed by its owner (null: System.out, flushed after each command)
+	private final PrintWriter console;
+	
+	//Error stream of the commands [ls --format=jsonl diagnostics]: System.err, or the console of a session (its client has no other)
+	private final PrintWriter errors;
+	
+	//The console is a terminal [ls --watch redraws its rows]
+	private final boolean terminal;
 
 	public Shell() {
+		this(null);
+	}
+	
+	public Shell(PrintWriter console) {
+		this(console, new PrintWriter(System.err, true), new ListingCache(), new CommandPlanCache(), System.console()!=null, true);
+	}
+	
+	/*
+	 * Shell of a session [SessionServer]: its own directory and console (errors included), the caches of the server
+	 */
+	public Shell(PrintWriter console, ListingCache listingCache, CommandPlanCache planCache, boolean terminal) {
+		this(console, console, listingCache, planCache, terminal, false);
+	}
+	
+	private Shell(PrintWriter console, PrintWriter errors, ListingCache listingCache, CommandPlanCache planCache, boolean terminal, boolean ownListingCache) {
 		super();
+		this.ownListingCache = ownListingCache;
 		this.currentDirectory = System.getProperty("user.dir");
+		this.listingCache = listingCache;
+		this.planCache = planCache;
+		this.console = console;
+		this.errors = errors;
+		this.terminal = terminal;
 	}
 	
-	public void execute(String commandLine) throws Exception
+	/*
+	 * true if the command was executed, false if it was reported as invalid
+	 */
+	public boolean execute(String commandLine) throws Exception
 	{
 		try
 		{
-			// Syntax Analyzer --> Parse command and get Type and Arguments
-			CommandParser command = new CommandParser(commandLine, this.currentDirectory);
+			// Syntax Analyzer --> Parse command (or reuse its plan) and get Type and Arguments
+			return this.execute(this.planCache.get(commandLine, this.currentDirectory));
+		}
+		// Invalid options and arguments [ls --foo] : the message of the command
+		catch(IllegalArgumentException e) {this.report(e.getMessage());}
+		return false;
+	}
+	
+	/*
+	 * Execute an already parsed command line [batch mode]
+	 */
+	public boolean execute(CommandPlan plan) throws Exception
+	{
+		try
+		{
+			CommandParser command = new CommandParser(plan, this.currentDirectory);
 			
 			// OUT TARGET [Exemple : ls -l > out.txt] default is Console (OutFile=null)
 			PrintWriter out = this.getWriter(command.getArguments().getOutFile());
 			
 			// Call Builder to Handle command
-			if(command.getCommandType().equals("ls")) (new LsCommandBuilder()).execute(command, out);
+			if(command.getCommandType().equals("ls")) (new LsCommandBuilder(this.listingCache, this.terminal, this.errors)).execute(command, out);
 			if(command.getCommandType().equals("cd")) this.currentDirectory = (new CdCommandBuilder()).execute(command, this.currentDirectory);
+			if(command.getCommandType().equals("locate")) (new LocateCommandBuilder()).execute(command, out);
+			if(command.getCommandType().equals("updatedb")) (new UpdatedbCommandBuilder()).execute(command, this.currentDirectory, out);
+			if(command.getCommandType().equals("du")) (new DuCommandBuilder()).execute(command, out);
+			if(command.getCommandType().equals("find")) (new FindCommandBuilder()).execute(command, out);
 			
-			// CLOSE Writer (for File writing not Console)
+			// CLOSE Writer (for File writing not Console), the console writer is only flushed
 			if(command.getArguments().getOutFile()!=null) out.close();
+			else if(this.console==null) out.flush();
+			return true;
 		}
-		catch(Exception e) {System.out.println("'"+commandLine+"' is not recognized as an internal or external command,\r\n" + 
+		// Invalid options and arguments [ls --foo] : the message of the command
+		catch(IllegalArgumentException e) {this.report(e.getMessage());}
+		catch(Exception e) {this.report("'"+plan.getCommandLine()+"' is not recognized as an internal or external command,\r\n" + 
 				"operable program or batch file.");}
+		return false;
+	}
+	
+	private void report(String message)
+	{
+		if(this.console==null) System.out.println(message);
+		else this.console.println(message);
+	}
+	
+	/*
+	 * Release the directory watches of the Shell's own cache (a session's cache belongs to its server)
+	 */
+	@Override
+	public void close()
+	{
+		if(this.ownListingCache) this.listingCache.close();
 	}
 	
 	
@@ -47,13 +134,23 @@ public class Shell
 	public void setCurrentDirectory(String currentDirectory) {
 		this.currentDirectory = currentDirectory;
 	}
+
+	public ListingCache getListingCache() {
+		return listingCache;
+	}
+
+	public CommandPlanCache getPlanCache() {
+		return planCache;
+	}
 	/************************************************************************************************************************/
 	
 
 	public PrintWriter getWriter(String outFile) throws FileNotFoundException
 	{
 		// if no file specified Print to console
-		if (outFile==null) return new PrintWriter(System.out, true);
+		// (buffered without auto-flush: the views write large chunks, flushed once the command is done)
+		if (outFile==null && this.console!=null) return this.console;
+		if (outFile==null) return new PrintWriter(new BufferedWriter(new OutputStreamWriter(new ConsoleStream()), 1 << 16), false);
 		else return new PrintWriter(new File(this.currentDirectory+"\\"+outFile));
 	}
 
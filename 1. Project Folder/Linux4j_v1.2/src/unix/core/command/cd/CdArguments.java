@@ -2,8 +2,10 @@ package unix.core.command.cd;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 
 import unix.core.base.Arguments;
+import unix.util.GlobExpander;
 
 public class CdArguments implements Arguments
 {
@@ -58,6 +60,19 @@ public class CdArguments implements Arguments
 				continue;
 			}
 			
+			//Wildcard [cd proj*/src , cd **/target , cd ../logs/2026-* , cd ~/x*]: first matching directory
+			if (GlobExpander.isGlob(arg))
+			{
+				String pattern = arg.charAt(0) == '~' ? System.getProperty("user.home") + arg.substring(1) : arg;
+				for (String match: GlobExpander.expand(currentDirectory, Collections.singletonList(pattern)))
+				{
+					File dir = match.startsWith("/") ? new File(match) : new File(currentDirectory+"/"+match);
+					if (dir.isDirectory()) {this.directories.add(dir.getAbsolutePath()); break;}
+				}
+				if (this.directories.isEmpty()) throw new IllegalArgumentException("cd: " + arg + ": No such file or directory");
+				break;
+			}
+			
 			//Parent Directory [..]
 			if (arg.length()>1 && arg.charAt(0) == '.' && arg.charAt(1) == '.')
 			{
@@ -0,0 +1,153 @@
+package unix.core.command.du;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import unix.core.base.Arguments;
+import unix.util.GlobExpander;
+
+/*
+ * DuArguments
+ * du [-s] [-a] [-c] [-b | -h | --si | --block-size=SIZE] [--max-depth=N] [FILE]... [> out.txt]
+ */
+public class DuArguments implements Arguments
+{
+	//Operands: absolute path, and the name shown (as written)
+	private ArrayList<String> paths;
+	private ArrayList<String> names;
+	private ArrayList<String> unmatched;
+	private String outFile;
+
+	private boolean all;
+	private boolean total;
+	private boolean bytes;
+	private boolean humanReadable;
+	private int sizePower;
+	private String blockSize;
+	private int maxDepth;
+	private boolean help;
+
+
+	public DuArguments(String currentDirectory, List<String> options, ArrayList<String> secondArgument) throws Exception
+	{
+		super();
+		this.paths = new ArrayList<String>();
+		this.names = new ArrayList<String>();
+		this.unmatched = new ArrayList<String>();
+		this.sizePower = 1024;
+		this.maxDepth = Integer.MAX_VALUE;
+
+		for (String option: options)
+		{
+			switch (option)
+			{
+				case "s": case "summarize":			this.maxDepth = 0; break;
+				case "a": case "all":				this.all = true; break;
+				case "c": case "total":				this.total = true; break;
+				case "b": case "bytes":				this.bytes = true; break;
+				case "h": case "human-readable":	this.humanReadable = true; break;
+				case "si":							this.humanReadable = true; this.sizePower = 1000; break;
+				case "help":						this.help = true; break;
+				default:
+					if (option.startsWith("max-depth=")) this.maxDepth = depth(option.substring(10));
+					else if (option.startsWith("block-size=")) this.blockSize = option.substring(11);
+					else if (option.length() == 1) throw new IllegalArgumentException("du: invalid option -- '" + option + "'");
+					else throw new IllegalArgumentException("du: unrecognized option '--" + option + "'");
+			}
+		}
+
+		//Get Files and OUT-file
+		Boolean isOutFile=false;
+		for (String arg: secondArgument)
+		{
+			if (isOutFile) this.outFile=arg;
+			else if (arg.equals(">")) isOutFile=true;
+			//Wildcard [du -sh *]: every match, patterns matching nothing are reported
+			else if (GlobExpander.isGlob(arg))
+			{
+				for (String match: GlobExpander.expand(currentDirectory, Collections.singletonList(arg), this.unmatched))
+					this.add(match.startsWith("/") ? match : currentDirectory+"/"+match, match);
+			}
+			//Home Directory [~]
+			else if (arg.charAt(0) == '~') this.add(System.getProperty("user.home"), arg);
+			//Relative-Absolute Path
+			else if (arg.charAt(0) == '/' || (arg.length()>2 && arg.charAt(1) == ':' && arg.charAt(2) == '\\')) this.add(new File(arg).getAbsolutePath(), arg);
+			else this.add(currentDirectory+"/"+arg, arg);
+		}
+
+		//IF no File was specified, use Shell-Directory
+		if (this.paths.isEmpty() && this.unmatched.isEmpty()) this.add(currentDirectory, ".");
+	}
+
+	private void add(String path, String name)
+	{
+		this.paths.add(path);
+		this.names.add(name);
+	}
+
+	private static int depth(String value)
+	{
+		try
+		{
+			int depth = Integer.parseInt(value);
+			if (depth >= 0) return depth;
+		}
+		catch (NumberFormatException e) {}
+		throw new IllegalArgumentException("du: invalid maximum depth '" + value + "'");
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	@Override
+	public String getOutFile() {
+		return outFile;
+	}
+
+	public ArrayList<String> getPaths() {
+		return paths;
+	}
+
+	public ArrayList<String> getNames() {
+		return names;
+	}
+
+	public ArrayList<String> getUnmatched() {
+		return unmatched;
+	}
+
+	public boolean isAll() {
+		return all;
+	}
+
+	public boolean isTotal() {
+		return total;
+	}
+
+	public boolean isBytes() {
+		return bytes;
+	}
+
+	public boolean isHumanReadable() {
+		return humanReadable;
+	}
+
+	// 1024, or 1000 for --si
+	public int getSizePower() {
+		return sizePower;
+	}
+
+	public String getBlockSize() {
+		return blockSize;
+	}
+
+	// Integer.MAX_VALUE: every directory
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public boolean isHelp() {
+		return help;
+	}
+	/************************************************************************************************************************/
+}
@@ -0,0 +1,93 @@
+package unix.core.command.du;
+
+import java.io.PrintWriter;
+
+import unix.core.base.CommandParser;
+import unix.core.base.SpecificCommandBuilder;
+import unix.util.FieldFormat;
+
+/*
+ * DuCommandBuilder
+ * du: size of every directory tree given [the Shell-Directory by default], its subdirectories first (post-order).
+ * The trees are walked in parallel [DuWalk], the lines are printed once a tree is done, in the order of the directories.
+ */
+public class DuCommandBuilder implements SpecificCommandBuilder
+{
+	public void execute(CommandParser command, PrintWriter out) throws Exception
+	{
+		DuArguments duArg = (DuArguments) command.getArguments();
+
+		if (duArg.isHelp())
+		{
+			this.printHelp(out);
+			return;
+		}
+
+		// Globs without any match
+		for (String glob: duArg.getUnmatched()) out.println("du: cannot access '" + glob + "': No such file or directory");
+
+		//Hard links are counted once for the whole command
+		DuWalk walk = new DuWalk(duArg.getMaxDepth(), duArg.isAll(), duArg.getPaths().size() > 1);
+		long total = 0;
+		StringBuilder row = new StringBuilder(256);
+		for (int i=0; i<duArg.getPaths().size(); i++)
+		{
+			DuWalk.Node tree = walk.walk(duArg.getPaths().get(i), duArg.getNames().get(i));
+			while (!walk.getErrors().isEmpty()) out.println(walk.getErrors().poll());
+			if (tree == null) continue;
+
+			this.print(tree, duArg, row, out);
+			total += tree.size;
+		}
+
+		// -c, --total
+		if (duArg.isTotal())
+		{
+			row.setLength(0);
+			out.print(row.append(this.size(total, duArg)).append("\ttotal\n"));
+		}
+	}
+
+	/*
+	 * Children first, then the node itself
+	 */
+	private void print(DuWalk.Node node, DuArguments duArg, StringBuilder row, PrintWriter out)
+	{
+		if (node.children != null)
+			for (DuWalk.Node child: node.children) this.print(child, duArg, row, out);
+
+		row.setLength(0);
+		out.print(row.append(this.size(node.size, duArg)).append('\t').append(node.name).append('\n'));
+	}
+
+	/*
+	 * Default: 1024-byte units rounded up, -b: bytes, --block-size / -h / --si: the size format of ls
+	 */
+	private String size(long bytes, DuArguments duArg)
+	{
+		if (duArg.isHumanReadable()) return FieldFormat.size(bytes, null, duArg.getSizePower());
+		if (duArg.getBlockSize() != null) return FieldFormat.size(bytes, duArg.getBlockSize(), 1024);
+		if (duArg.isBytes()) return Long.toString(bytes);
+		return Long.toString((bytes + 1023) / 1024);
+	}
+
+	public void printHelp(PrintWriter out)
+	{
+		out.println("Usage: du [OPTION]... [FILE]...");
+		out.println("Summarize the size of the set of FILEs, recursively for directories (the current directory");
+		out.println("by default). Sizes are apparent sizes, a file with several hard links is counted once.");
+		out.println();
+		out.println("  -a, --all              write counts for all files, not just directories");
+		out.println("  -b, --bytes            print sizes in bytes");
+		out.println("      --block-size=SIZE  scale sizes by SIZE (B, K, M, G, T) like ls");
+		out.println("  -c, --total            produce a grand total");
+		out.println("  -h, --human-readable   print sizes in human readable format (e.g., 1.5K 234.0M 2.0G)");
+		out.println("      --max-depth=N      print the total for a directory only if it is N or fewer levels");
+		out.println("                           below the command line argument");
+		out.println("  -s, --summarize        display only a total for each argument (--max-depth=0)");
+		out.println("      --si               like -h, but use powers of 1000 not 1024");
+		out.println("      --help             display this help and exit");
+		out.println();
+		out.println("Without -b, -h, --si or --block-size, sizes are in units of 1024 bytes, rounded up.");
+	}
+}
@@ -0,0 +1,325 @@
+package unix.core.command.du;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import unix.util.InodeSet;
+
+/*
+ * DuWalk
+ * Sizes of directory trees, walked in parallel on a fork/join pool:
+ * 		- every subdirectory is a task (work-stealing balances deep and wide trees)
+ * 		- a big directory splits its entries into chunks, stat-ed in parallel
+ * 		- a file with several hard links is counted once, in the directory where a sequential walk meets it first:
+ * 		  the walkers only record the files with nlink > 1, the links seen twice [InodeSet] are settled once the tree is done
+ * Only the nodes that are printed [depth <= max-depth] are kept, with their children in the order of the directory.
+ * Links are never followed. Sizes are apparent sizes (st_size): the allocated blocks aren't exposed to Java.
+ *
+ * Configuration (system property):
+ * 		linux4j.du.parallelism		number of walker threads (default 4 per core, at most 64: the walk waits on stat calls)
+ */
+final class DuWalk
+{
+	public static final int PARALLELISM = Integer.getInteger("linux4j.du.parallelism",
+			Math.min(64, 4 * Runtime.getRuntime().availableProcessors()));
+
+	//Entries stat-ed by one task of a big directory
+	private static final int CHUNK = 512;
+
+	private static final String UNIX_ATTRIBUTES = "unix:mode,dev,ino,nlink,size";
+	private static final int S_IFMT = 0170000;
+	private static final int S_IFDIR = 0040000;
+
+	private static volatile ForkJoinPool pool;
+
+	private final int maxDepth;
+	private final boolean all;
+	//Several trees: their directories are recorded too, a tree nested in a previous one isn't counted again
+	private final boolean directories;
+	private final Queue<String> errors;
+
+	//Hard links: counted by the previous trees of the command, seen by this tree, seen twice by this tree
+	private final InodeSet counted;
+	private InodeSet seen;
+	private InodeSet repeated;
+	private Queue<Node> links;
+
+	/*
+	 * A printed line: file or directory, size of its whole tree
+	 */
+	static final class Node
+	{
+		final String name;
+		final boolean directory;
+		long size;
+		//Printed children, in the order of the directory (null: none)
+		List<Node> children;
+
+		//Position in the tree [hard links: the first one in walk order is counted]
+		Node parent;
+		int index;
+		long device;
+		long inode;
+
+		Node(String name, boolean directory, long size)
+		{
+			this.name = name;
+			this.directory = directory;
+			this.size = size;
+		}
+	}
+
+	DuWalk(int maxDepth, boolean all, boolean directories)
+	{
+		super();
+		this.maxDepth = maxDepth;
+		this.all = all;
+		this.directories = directories;
+		this.errors = new ConcurrentLinkedQueue<String>();
+		this.counted = new InodeSet();
+	}
+
+	/*
+	 * Tree of path, shown as name (null if it can't be read at all, see getErrors).
+	 * A file linked in a tree walked before (by this DuWalk) is counted there only.
+	 */
+	Node walk(String path, String name)
+	{
+		this.seen = new InodeSet();
+		this.repeated = new InodeSet();
+		this.links = new ConcurrentLinkedQueue<Node>();
+
+		Path root = Paths.get(path);
+		Node node = this.stat(root, name);
+		if(node == null) return null;
+		if(node.directory) getPool().invoke(new DirectoryTask(node, root, 0));
+		this.settleLinks();
+		return node;
+	}
+
+	/*
+	 * Node of one entry with its own size (null if it's gone or if a previous tree counted it)
+	 */
+	private Node stat(Path path, String name)
+	{
+		try
+		{
+			Map<String, Object> attributes = Files.readAttributes(path, UNIX_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+			boolean directory = ((Integer) attributes.get("mode") & S_IFMT) == S_IFDIR;
+			Node node = new Node(name, directory, (Long) attributes.get("size"));
+			if(directory ? !this.directories : (Integer) attributes.get("nlink") < 2) return node;
+
+			node.device = (Long) attributes.get("dev");
+			node.inode = (Long) attributes.get("ino");
+			if(this.counted.contains(node.device, node.inode)) return null;
+			if(!directory && !this.seen.add(node.device, node.inode)) this.repeated.add(node.device, node.inode);
+			this.links.add(node);
+			return node;
+		}
+		catch(UnsupportedOperationException | IllegalArgumentException e)
+		{
+			//No unix view (DOS-environment): no inode, every link is counted
+			try
+			{
+				BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+				return new Node(name, attributes.isDirectory(), attributes.size());
+			}
+			catch(IOException ioe) { this.error("cannot access", name, ioe); }
+		}
+		catch(IOException e) { this.error("cannot access", name, e); }
+		return null;
+	}
+
+	/*
+	 * Files met more than once: the first link in walk order keeps the size, the others are taken off their directories
+	 */
+	private void settleLinks()
+	{
+		List<Node> repeated = new ArrayList<Node>();
+		for(Node link: this.links)
+		{
+			if(this.repeated.contains(link.device, link.inode)) repeated.add(link);
+			this.counted.add(link.device, link.inode);
+		}
+
+		Collections.sort(repeated, (a, b) -> {
+			if(a.device != b.device) return Long.compare(a.device, b.device);
+			if(a.inode != b.inode) return Long.compare(a.inode, b.inode);
+			return compareWalkOrder(a, b);
+		});
+		for(int i=1; i<repeated.size(); i++)
+		{
+			Node link = repeated.get(i), previous = repeated.get(i - 1);
+			if(link.device != previous.device || link.inode != previous.inode) continue;
+			for(Node directory = link.parent; directory != null; directory = directory.parent) directory.size -= link.size;
+			if(link.parent.children != null) link.parent.children.remove(link);
+		}
+		this.links = null;
+	}
+
+	/*
+	 * Order of a sequential walk: the positions from the root, compared level by level
+	 */
+	private static int compareWalkOrder(Node a, Node b)
+	{
+		int[] first = position(a), second = position(b);
+		for(int i=0; i<first.length && i<second.length; i++)
+			if(first[i] != second[i]) return Integer.compare(first[i], second[i]);
+		return Integer.compare(first.length, second.length);
+	}
+
+	private static int[] position(Node node)
+	{
+		int depth = 0;
+		for(Node up = node; up.parent != null; up = up.parent) depth++;
+		int[] position = new int[depth];
+		for(Node up = node; up.parent != null; up = up.parent) position[--depth] = up.index;
+		return position;
+	}
+
+	private void error(String action, String name, IOException e)
+	{
+		String reason = e instanceof NoSuchFileException ? "No such file or directory"
+				: e instanceof AccessDeniedException ? "Permission denied"
+				: e.getMessage();
+		this.errors.add("du: " + action + " '" + name + "': " + reason);
+	}
+
+	private static ForkJoinPool getPool()
+	{
+		if(pool == null)
+		{
+			synchronized(DuWalk.class)
+			{
+				if(pool == null) pool = new ForkJoinPool(PARALLELISM);
+			}
+		}
+		return pool;
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	// Entries that couldn't be read, in no particular order
+	Queue<String> getErrors() {
+		return errors;
+	}
+	/************************************************************************************************************************/
+
+
+
+	/*
+	 * One directory: its entries are stat-ed (in chunks when there are many), its subdirectories forked
+	 */
+	private final class DirectoryTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Node node;
+		private final Path directory;
+		private final int depth;
+
+		DirectoryTask(Node node, Path directory, int depth)
+		{
+			this.node = node;
+			this.directory = directory;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute()
+		{
+			List<Path> entries = new ArrayList<Path>();
+			try(DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory))
+			{
+				for(Path entry: stream) entries.add(entry);
+			}
+			catch(IOException e) { DuWalk.this.error("cannot read directory", this.node.name, e); }
+
+			Node[] children = new Node[entries.size()];
+			StatTask stat = new StatTask(this.node, entries, children, 0, children.length);
+			this.node.size += entries.size() <= CHUNK ? stat.compute() : stat.invoke();
+
+			List<DirectoryTask> subdirectories = new ArrayList<DirectoryTask>();
+			for(int i=0; i<children.length; i++)
+				if(children[i] != null && children[i].directory) subdirectories.add(new DirectoryTask(children[i], entries.get(i), this.depth + 1));
+			if(subdirectories.size() == 1) subdirectories.get(0).compute();
+			else if(!subdirectories.isEmpty()) invokeAll(subdirectories);
+
+			//Subtree sizes, and the children that are printed [depth <= max-depth, files with -a]
+			boolean printed = this.depth + 1 <= DuWalk.this.maxDepth;
+			for(Node child: children)
+			{
+				if(child == null) continue;
+				if(child.directory) this.node.size += child.size;
+				if(!printed || (!child.directory && !DuWalk.this.all)) continue;
+				if(this.node.children == null) this.node.children = new ArrayList<Node>();
+				this.node.children.add(child);
+			}
+		}
+	}
+
+	/*
+	 * Stat of the entries [from, to): a node for every entry, the sum of the sizes of the files
+	 */
+	private final class StatTask extends RecursiveTask<Long>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Node parent;
+		private final List<Path> entries;
+		private final Node[] children;
+		private final int from;
+		private final int to;
+
+		StatTask(Node parent, List<Path> entries, Node[] children, int from, int to)
+		{
+			this.parent = parent;
+			this.entries = entries;
+			this.children = children;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute()
+		{
+			if(this.to - this.from > CHUNK)
+			{
+				int middle = (this.from + this.to) >>> 1;
+				StatTask second = new StatTask(this.parent, this.entries, this.children, middle, this.to);
+				second.fork();
+				long first = new StatTask(this.parent, this.entries, this.children, this.from, middle).compute();
+				return first + second.join();
+			}
+
+			long files = 0;
+			String prefix = this.parent.name.endsWith("/") ? this.parent.name : this.parent.name + "/";
+			for(int i=this.from; i<this.to; i++)
+			{
+				Path entry = this.entries.get(i);
+				Node child = DuWalk.this.stat(entry, prefix + entry.getFileName());
+				if(child == null) continue;
+				child.parent = this.parent;
+				child.index = i;
+				if(!child.directory) files += child.size;
+				this.children[i] = child;
+			}
+			return files;
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package unix.core.command.find;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import unix.core.base.Arguments;
+
+/*
+ * FindArguments
+ * find [STARTING-POINT]... [-maxdepth N] [-mindepth N] [-noleaf] [EXPRESSION] [> out.txt]
+ * The expression is read in the order typed [CommandPlan tokens], and compiled here once:
+ * 		OR:		AND [-o AND]...
+ * 		AND:	NOT [[-a] NOT]...
+ * 		NOT:	[! | -not]... PRIMARY
+ * 		PRIMARY: ( OR ) | test | action
+ * Quotes around an argument are removed ['*.txt', "a b"], \( and \) are the same as ( and ).
+ */
+public class FindArguments implements Arguments
+{
+	private static final long MINUTE = 60 * 1000L;
+	private static final long DAY = 24 * 60 * MINUTE;
+
+	//Starting points: path used for the walk, and the name printed (as written)
+	private ArrayList<String> paths;
+	private ArrayList<String> names;
+	private String outFile;
+
+	private int maxDepth;
+	private int minDepth;
+	private boolean noLeaf;
+	private boolean help;
+	private FindExpression expression;
+
+	//Parser state
+	private List<String> words;
+	private int position;
+	private String currentDirectory;
+	private long now;
+
+
+	public FindArguments(String currentDirectory, List<String> tokens) throws Exception
+	{
+		super();
+		this.paths = new ArrayList<String>();
+		this.names = new ArrayList<String>();
+		this.maxDepth = Integer.MAX_VALUE;
+		this.currentDirectory = currentDirectory;
+		this.now = System.currentTimeMillis();
+
+		//OUT-file, then the words of the command
+		this.words = new ArrayList<String>();
+		List<String> unquoted = unquote(tokens);
+		for (int i=0; i<unquoted.size(); i++)
+		{
+			if (unquoted.get(i).equals(">") && i + 1 < unquoted.size()) this.outFile = unquoted.get(++i);
+			else this.words.add(unquoted.get(i));
+		}
+
+		//Starting points: everything before the expression
+		while (this.position < this.words.size() && !isExpression(this.words.get(this.position)))
+		{
+			String arg = this.words.get(this.position++);
+			if (arg.charAt(0) == '~') this.add(System.getProperty("user.home") + arg.substring(1), arg);
+			else this.add(Paths.get(currentDirectory).resolve(arg).toString(), arg);
+		}
+		if (this.paths.isEmpty()) this.add(currentDirectory, ".");
+
+		FindExpression expression = this.position < this.words.size() ? this.or() : new FindExpression.True();
+		if (this.position < this.words.size())
+		{
+			String word = this.words.get(this.position);
+			if (word.equals(")")) throw new IllegalArgumentException("find: invalid expression; you have too many ')'");
+			throw new IllegalArgumentException("find: paths must precede expression: '" + word + "'");
+		}
+
+		//No -print, -print0: every entry matching the expression is printed
+		if (!expression.hasPrint())
+		{
+			List<FindExpression> and = new ArrayList<FindExpression>();
+			and.add(expression);
+			and.add(new FindExpression.Print('\n'));
+			expression = new FindExpression.And(and);
+		}
+		this.expression = expression.optimize();
+		this.words = null;
+	}
+
+	/*
+	 * 'a b' typed with a space comes as two tokens: joined again, and the quotes removed
+	 */
+	private static List<String> unquote(List<String> tokens)
+	{
+		List<String> words = new ArrayList<String>();
+		StringBuilder word = null;
+		char quote = 0;
+		for (String token: tokens)
+		{
+			if (word != null)
+			{
+				word.append(' ').append(token);
+				if (token.charAt(token.length() - 1) == quote) {words.add(word.substring(1, word.length() - 1)); word = null;}
+				continue;
+			}
+			char first = token.charAt(0);
+			if ((first == '\'' || first == '"') && (token.length() == 1 || token.charAt(token.length() - 1) != first))
+			{
+				word = new StringBuilder(token);
+				quote = first;
+			}
+			else if ((first == '\'' || first == '"') && token.length() > 1) words.add(token.substring(1, token.length() - 1));
+			else if (token.equals("\\(") || token.equals("\\)") || token.equals("\\!") || token.equals("\\;")) words.add(token.substring(1));
+			else words.add(token);
+		}
+		if (word != null) throw new IllegalArgumentException("find: unterminated quote " + quote + word.substring(1));
+		return words;
+	}
+
+	private static boolean isExpression(String word)
+	{
+		return (word.length() > 1 && word.charAt(0) == '-') || word.equals("(") || word.equals("!");
+	}
+
+	private void add(String path, String name)
+	{
+		this.paths.add(path);
+		this.names.add(name);
+	}
+
+	/*****************************************************EXPRESSION-PARSER********************************************************/
+	private FindExpression or()
+	{
+		List<FindExpression> operands = new ArrayList<FindExpression>();
+		operands.add(this.and());
+		while (this.peek("-o") || this.peek("-or"))
+		{
+			this.position++;
+			if (this.position >= this.words.size()) throw new IllegalArgumentException("find: expected an expression after '-o'");
+			operands.add(this.and());
+		}
+		return operands.size() == 1 ? operands.get(0) : new FindExpression.Or(operands);
+	}
+
+	private FindExpression and()
+	{
+		List<FindExpression> operands = new ArrayList<FindExpression>();
+		operands.add(this.not());
+		while (this.position < this.words.size() && !this.peek(")") && !this.peek("-o") && !this.peek("-or"))
+		{
+			if (this.peek("-a") || this.peek("-and"))
+			{
+				this.position++;
+				if (this.position >= this.words.size()) throw new IllegalArgumentException("find: expected an expression after '-a'");
+			}
+			operands.add(this.not());
+		}
+		return operands.size() == 1 ? operands.get(0) : new FindExpression.And(operands);
+	}
+
+	private FindExpression not()
+	{
+		if (this.peek("!") || this.peek("-not"))
+		{
+			String word = this.words.get(this.position++);
+			if (this.position >= this.words.size()) throw new IllegalArgumentException("find: expected an expression after '" + word + "'");
+			return new FindExpression.Not(this.not());
+		}
+		return this.primary();
+	}
+
+	private FindExpression primary()
+	{
+		String word = this.words.get(this.position++);
+		switch (word)
+		{
+			case "(":
+				if (this.peek(")")) throw new IllegalArgumentException("find: invalid expression; empty parentheses are not allowed.");
+				FindExpression group = this.or();
+				if (!this.peek(")")) throw new IllegalArgumentException("find: invalid expression; I was expecting to find a ')' somewhere but did not see one.");
+				this.position++;
+				return group;
+
+			//Global options: no effect on the expression (always true)
+			case "-maxdepth":	this.maxDepth = depth(word, this.argument(word)); return new FindExpression.True();
+			case "-mindepth":	this.minDepth = depth(word, this.argument(word)); return new FindExpression.True();
+			case "-noleaf":		this.noLeaf = true; return new FindExpression.True();
+			case "--help":		this.help = true; return new FindExpression.True();
+
+			//Tests
+			case "-name":		return new FindExpression.Name(this.argument(word), false);
+			case "-iname":		return new FindExpression.Name(this.argument(word), true);
+			case "-path":		return new FindExpression.PathTest(this.argument(word), false);
+			case "-ipath":		return new FindExpression.PathTest(this.argument(word), true);
+			case "-type":		return new FindExpression.Type(types(this.argument(word)));
+			case "-size":		return size(this.argument(word));
+			case "-mtime":		return this.age(word, this.argument(word), DAY);
+			case "-mmin":		return this.age(word, this.argument(word), MINUTE);
+			case "-newer":		return this.newer(this.argument(word));
+			case "-true":		return new FindExpression.True();
+			case "-false":		return new FindExpression.Not(new FindExpression.True());
+
+			//Actions
+			case "-prune":		return new FindExpression.Prune();
+			case "-print":		return new FindExpression.Print('\n');
+			case "-print0":		return new FindExpression.Print('\0');
+
+			case ")":			throw new IllegalArgumentException("find: invalid expression; you have too many ')'");
+			default:
+				if (isExpression(word)) throw new IllegalArgumentException("find: unknown predicate '" + word + "'");
+				throw new IllegalArgumentException("find: paths must precede expression: '" + word + "'");
+		}
+	}
+
+	private boolean peek(String word)
+	{
+		return this.position < this.words.size() && this.words.get(this.position).equals(word);
+	}
+
+	private String argument(String predicate)
+	{
+		if (this.position >= this.words.size()) throw new IllegalArgumentException("find: missing argument to '" + predicate + "'");
+		return this.words.get(this.position++);
+	}
+
+	private static int depth(String predicate, String value)
+	{
+		try
+		{
+			int depth = Integer.parseInt(value);
+			if (depth >= 0) return depth;
+		}
+		catch (NumberFormatException e) {}
+		throw new IllegalArgumentException("find: Expected a positive decimal integer argument to " + predicate + ", but got '" + value + "'");
+	}
+
+	/*
+	 * -type f,d,... : the file-type bits of every letter
+	 */
+	private static int[] types(String value)
+	{
+		String[] letters = value.split(",", -1);
+		int[] types = new int[letters.length];
+		for (int i=0; i<letters.length; i++)
+		{
+			switch (letters[i])
+			{
+				case "f":	types[i] = FindEntry.S_IFREG; break;
+				case "d":	types[i] = FindEntry.S_IFDIR; break;
+				case "l":	types[i] = FindEntry.S_IFLNK; break;
+				case "p":	types[i] = FindEntry.S_IFIFO; break;
+				case "s":	types[i] = FindEntry.S_IFSOCK; break;
+				case "c":	types[i] = FindEntry.S_IFCHR; break;
+				case "b":	types[i] = FindEntry.S_IFBLK; break;
+				default:	throw new IllegalArgumentException("find: Unknown argument to -type: " + letters[i]);
+			}
+		}
+		return types;
+	}
+
+	/*
+	 * -size [+-]N[bcwkMG] : b 512 bytes (default), c bytes, w 2 bytes, k M G powers of 1024
+	 */
+	private static FindExpression size(String value)
+	{
+		char sign = sign(value);
+		String number = sign == 0 ? value : value.substring(1);
+		long unit = 512;
+		if (!number.isEmpty() && !Character.isDigit(number.charAt(number.length() - 1)))
+		{
+			switch (number.charAt(number.length() - 1))
+			{
+				case 'b':	unit = 512; break;
+				case 'c':	unit = 1; break;
+				case 'w':	unit = 2; break;
+				case 'k':	unit = 1024; break;
+				case 'M':	unit = 1024 * 1024; break;
+				case 'G':	unit = 1024 * 1024 * 1024; break;
+				default:	throw new IllegalArgumentException("find: invalid -size type '" + number.charAt(number.length() - 1) + "'");
+			}
+			number = number.substring(0, number.length() - 1);
+		}
+		return new FindExpression.Size(sign, number(value, "-size", number), unit);
+	}
+
+	private FindExpression age(String predicate, String value, long unit)
+	{
+		char sign = sign(value);
+		return new FindExpression.Age(sign, number(value, predicate, sign == 0 ? value : value.substring(1)), unit, this.now);
+	}
+
+	/*
+	 * -newer FILE : its time is read now, a missing FILE is an error like with GNU find
+	 */
+	private FindExpression newer(String file)
+	{
+		Path path = Paths.get(this.currentDirectory).resolve(file);
+		try
+		{
+			return new FindExpression.Newer(Files.getLastModifiedTime(path).toMillis());
+		}
+		catch (IOException e)
+		{
+			throw new IllegalArgumentException("find: '" + file + "': No such file or directory");
+		}
+	}
+
+	private static char sign(String value)
+	{
+		return !value.isEmpty() && (value.charAt(0) == '+' || value.charAt(0) == '-') ? value.charAt(0) : 0;
+	}
+
+	private static long number(String value, String predicate, String digits)
+	{
+		try
+		{
+			long number = Long.parseLong(digits);
+			if (number >= 0 && digits.charAt(0) != '+' && digits.charAt(0) != '-') return number;
+		}
+		catch (NumberFormatException e) {}
+		throw new IllegalArgumentException("find: invalid argument '" + value + "' to '" + predicate + "'");
+	}
+	/******************************************************************************************************************************/
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	@Override
+	public String getOutFile() {
+		return outFile;
+	}
+
+	public ArrayList<String> getPaths() {
+		return paths;
+	}
+
+	public ArrayList<String> getNames() {
+		return names;
+	}
+
+	// Integer.MAX_VALUE: no limit
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public int getMinDepth() {
+		return minDepth;
+	}
+
+	// -noleaf: don't count the subdirectories with the links of a directory
+	public boolean isNoLeaf() {
+		return noLeaf;
+	}
+
+	public boolean isHelp() {
+		return help;
+	}
+
+	// Compiled and optimized: the cheapest tests first
+	FindExpression getExpression() {
+		return expression;
+	}
+	/************************************************************************************************************************/
+}
@@ -0,0 +1,54 @@
+package unix.core.command.find;
+
+import java.io.PrintWriter;
+
+import unix.core.base.CommandParser;
+import unix.core.base.SpecificCommandBuilder;
+
+/*
+ * FindCommandBuilder
+ * find: every file of the trees given [the Shell-Directory by default] matching the expression.
+ * The trees are walked in parallel [FindWalk], the matches are written while the walk goes on.
+ */
+public class FindCommandBuilder implements SpecificCommandBuilder
+{
+	public void execute(CommandParser command, PrintWriter out) throws Exception
+	{
+		FindArguments findArg = (FindArguments) command.getArguments();
+
+		if (findArg.isHelp())
+		{
+			this.printHelp(out);
+			return;
+		}
+
+		FindWalk walk = new FindWalk(findArg.getExpression(), findArg.getMaxDepth(), findArg.getMinDepth(), findArg.isNoLeaf(), out);
+		for (int i=0; i<findArg.getPaths().size(); i++) walk.walk(findArg.getPaths().get(i), findArg.getNames().get(i));
+		out.flush();
+	}
+
+	public void printHelp(PrintWriter out)
+	{
+		out.println("Usage: find [starting-point...] [expression]");
+		out.println("Search the trees of the starting-points [the current directory by default] for the files");
+		out.println("matching the expression. Links are not followed.");
+		out.println();
+		out.println("Operators (highest priority first):");
+		out.println("  ( EXPR )   ! EXPR   -not EXPR   EXPR1 -a EXPR2   EXPR1 -and EXPR2   EXPR1 -o EXPR2   EXPR1 -or EXPR2");
+		out.println();
+		out.println("Options:");
+		out.println("  -maxdepth LEVELS   -mindepth LEVELS   -noleaf   --help");
+		out.println();
+		out.println("Tests (N can be +N, -N or N):");
+		out.println("  -name PATTERN   -iname PATTERN   -path PATTERN   -ipath PATTERN");
+		out.println("  -type [fdlpscb][,...]   -size N[bcwkMG]   -mtime N   -mmin N   -newer FILE   -true   -false");
+		out.println();
+		out.println("Actions:");
+		out.println("  -print   -print0   -prune");
+		out.println();
+		out.println("Without -print or -print0, every file matching the expression is printed.");
+		out.println("Names are tested before anything that needs the attributes of a file (size, type, time).");
+		out.println("The order of the lines between directories depends on the walk: -Dlinux4j.find.parallelism=1");
+		out.println("walks the trees sequentially, in the order of GNU find.");
+	}
+}
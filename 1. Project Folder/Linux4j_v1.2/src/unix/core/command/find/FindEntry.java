@@ -0,0 +1,160 @@
+package unix.core.command.find;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+/*
+ * FindEntry
+ * One file met by the walk: its name and path are known from the directory read, its attributes are read on first use
+ * (ONE stat, never for an entry only tested on its name). Links are not followed.
+ */
+final class FindEntry
+{
+	private static final String UNIX_ATTRIBUTES = "unix:mode,nlink,size,lastModifiedTime";
+
+	//File-type bits of st_mode
+	static final int S_IFMT   = 0170000;
+	static final int S_IFSOCK = 0140000;
+	static final int S_IFLNK  = 0120000;
+	static final int S_IFREG  = 0100000;
+	static final int S_IFBLK  = 0060000;
+	static final int S_IFDIR  = 0040000;
+	static final int S_IFCHR  = 0020000;
+	static final int S_IFIFO  = 0010000;
+
+	/*
+	 * Where -print writes the path of the entry
+	 */
+	interface Sink
+	{
+		void print(String path, char end);
+	}
+
+	private final Path file;
+	private final String path;
+	private final String name;
+	private final int depth;
+	private final Sink sink;
+
+	private boolean loaded;
+	private boolean missing;
+	private int mode;
+	private int nlink;
+	private long size;
+	private long modified;
+
+	// -prune: don't descend into it
+	private boolean pruned;
+
+	FindEntry(Path file, String path, String name, int depth, Sink sink)
+	{
+		super();
+		this.file = file;
+		this.path = path;
+		this.name = name;
+		this.depth = depth;
+		this.sink = sink;
+	}
+
+	/*
+	 * unix view in one read, basic attributes without it (no nlink: -1, only the three main types)
+	 */
+	private void load()
+	{
+		if(this.loaded) return;
+		this.loaded = true;
+		try
+		{
+			Map<String, Object> attributes = Files.readAttributes(this.file, UNIX_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+			this.mode = (Integer) attributes.get("mode");
+			this.nlink = (Integer) attributes.get("nlink");
+			this.size = (Long) attributes.get("size");
+			this.modified = ((FileTime) attributes.get("lastModifiedTime")).toMillis();
+		}
+		catch(UnsupportedOperationException | IllegalArgumentException e)
+		{
+			try
+			{
+				BasicFileAttributes attributes = Files.readAttributes(this.file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+				this.mode = attributes.isDirectory() ? S_IFDIR : attributes.isSymbolicLink() ? S_IFLNK : attributes.isRegularFile() ? S_IFREG : 0;
+				this.nlink = -1;
+				this.size = attributes.size();
+				this.modified = attributes.lastModifiedTime().toMillis();
+			}
+			catch(IOException ioe) { this.missing = true; }
+		}
+		catch(IOException e) { this.missing = true; } //Removed meanwhile: matches no attribute test
+	}
+
+	void print(char end)
+	{
+		this.sink.print(this.path, end);
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	Path getFile() {
+		return file;
+	}
+
+	String getPath() {
+		return path;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	int getDepth() {
+		return depth;
+	}
+
+	// Attributes read already [the walk knows whether it's a directory without asking]
+	boolean isLoaded() {
+		return loaded;
+	}
+
+	boolean isMissing() {
+		this.load();
+		return missing;
+	}
+
+	// File-type bits of st_mode (0 if unknown)
+	int getType() {
+		this.load();
+		return mode & S_IFMT;
+	}
+
+	boolean isDirectory() {
+		return this.getType() == S_IFDIR;
+	}
+
+	// Links of a directory: 2 + its subdirectories on most file systems (-1: unknown)
+	int getNlink() {
+		this.load();
+		return nlink;
+	}
+
+	long getSize() {
+		this.load();
+		return size;
+	}
+
+	long getModified() {
+		this.load();
+		return modified;
+	}
+
+	boolean isPruned() {
+		return pruned;
+	}
+
+	void prune() {
+		this.pruned = true;
+	}
+	/************************************************************************************************************************/
+}
@@ -0,0 +1,444 @@
+package unix.core.command.find;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import unix.util.GlobExpander;
+
+/*
+ * FindExpression
+ * The expression of find, compiled once per command: tests, actions and the operators between them.
+ * Every node knows what it costs to evaluate:
+ * 		- NAME:			the name or the path, known from the directory read
+ * 		- ATTRIBUTES:	one stat of the entry (shared by all the attribute tests)
+ * 		- ACTION:		a side effect [-print, -prune], never moved
+ * optimize() evaluates the cheapest tests first: in a chain of -and, the tests between two actions are ordered by cost
+ * (an entry rejected on its name is never stat-ed).
+ */
+abstract class FindExpression
+{
+	static final int NAME = 0;
+	static final int ATTRIBUTES = 1;
+	static final int ACTION = 2;
+
+	abstract boolean test(FindEntry entry);
+
+	abstract int cost();
+
+	// -print or -print0 somewhere (otherwise every match is printed)
+	boolean hasPrint()
+	{
+		return false;
+	}
+
+	FindExpression optimize()
+	{
+		return this;
+	}
+
+	/******************************************************OPERATORS***************************************************************/
+	/*
+	 * expr1 [-a] expr2 ... : stops at the first false operand
+	 */
+	static final class And extends FindExpression
+	{
+		private final List<FindExpression> operands;
+
+		And(List<FindExpression> operands)
+		{
+			this.operands = operands;
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			for(FindExpression operand: this.operands)
+				if(!operand.test(entry)) return false;
+			return true;
+		}
+
+		@Override
+		int cost()
+		{
+			int cost = NAME;
+			for(FindExpression operand: this.operands) cost = Math.max(cost, operand.cost());
+			return cost;
+		}
+
+		@Override
+		boolean hasPrint()
+		{
+			for(FindExpression operand: this.operands)
+				if(operand.hasPrint()) return true;
+			return false;
+		}
+
+		/*
+		 * Tests sorted by cost between the actions (stable: same cost, same order)
+		 */
+		@Override
+		FindExpression optimize()
+		{
+			List<FindExpression> operands = new ArrayList<FindExpression>();
+			for(FindExpression operand: this.operands) operands.add(operand.optimize());
+
+			int start = 0;
+			for(int i=0; i<=operands.size(); i++)
+			{
+				if(i < operands.size() && operands.get(i).cost() != ACTION) continue;
+				Collections.sort(operands.subList(start, i), Comparator.comparingInt(FindExpression::cost));
+				start = i + 1;
+			}
+			return new And(operands);
+		}
+	}
+
+	/*
+	 * expr1 -o expr2 ... : stops at the first true operand
+	 */
+	static final class Or extends FindExpression
+	{
+		private final List<FindExpression> operands;
+
+		Or(List<FindExpression> operands)
+		{
+			this.operands = operands;
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			for(FindExpression operand: this.operands)
+				if(operand.test(entry)) return true;
+			return false;
+		}
+
+		@Override
+		int cost()
+		{
+			int cost = NAME;
+			for(FindExpression operand: this.operands) cost = Math.max(cost, operand.cost());
+			return cost;
+		}
+
+		@Override
+		boolean hasPrint()
+		{
+			for(FindExpression operand: this.operands)
+				if(operand.hasPrint()) return true;
+			return false;
+		}
+
+		@Override
+		FindExpression optimize()
+		{
+			List<FindExpression> operands = new ArrayList<FindExpression>();
+			for(FindExpression operand: this.operands) operands.add(operand.optimize());
+			return new Or(operands);
+		}
+	}
+
+	/*
+	 * ! expr, -not expr
+	 */
+	static final class Not extends FindExpression
+	{
+		private final FindExpression operand;
+
+		Not(FindExpression operand)
+		{
+			this.operand = operand;
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			return !this.operand.test(entry);
+		}
+
+		@Override
+		int cost()
+		{
+			return this.operand.cost();
+		}
+
+		@Override
+		boolean hasPrint()
+		{
+			return this.operand.hasPrint();
+		}
+
+		@Override
+		FindExpression optimize()
+		{
+			return new Not(this.operand.optimize());
+		}
+	}
+
+	// Empty expression: every entry
+	static final class True extends FindExpression
+	{
+		@Override
+		boolean test(FindEntry entry)
+		{
+			return true;
+		}
+
+		@Override
+		int cost()
+		{
+			return NAME;
+		}
+	}
+	/******************************************************************************************************************************/
+
+	/********************************************************NAME-TESTS************************************************************/
+	/*
+	 * -name PATTERN, -iname PATTERN : the name only, * and ? don't match '/'.
+	 * Plain names and *suffix / prefix* patterns are compared directly, without a regex.
+	 */
+	static final class Name extends FindExpression
+	{
+		private final boolean ignoreCase;
+		private final String literal;
+		//0: equals, 1: endsWith [*.log], 2: startsWith [core*], 3: regex
+		private final int kind;
+		private final Pattern pattern;
+
+		Name(String glob, boolean ignoreCase)
+		{
+			this.ignoreCase = ignoreCase;
+			String text = ignoreCase ? glob.toLowerCase(Locale.ROOT) : glob;
+			String middle = text.length() > 1 ? text.substring(1, text.length() - 1) : "";
+			if(!GlobExpander.isGlob(text) && text.indexOf('\\') < 0) {this.kind = 0; this.literal = text;}
+			else if(text.charAt(0) == '*' && !GlobExpander.isGlob(text.substring(1)) && text.indexOf('\\') < 0) {this.kind = 1; this.literal = text.substring(1);}
+			else if(text.charAt(text.length() - 1) == '*' && !GlobExpander.isGlob(text.substring(0, text.length() - 1)) && text.indexOf('\\') < 0) {this.kind = 2; this.literal = text.substring(0, text.length() - 1);}
+			else {this.kind = 3; this.literal = middle;}
+			this.pattern = this.kind == 3 ? GlobExpander.regex(glob, ignoreCase) : null;
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			String name = entry.getName();
+			if(this.kind == 3) return this.pattern.matcher(name).matches();
+			if(this.ignoreCase) name = name.toLowerCase(Locale.ROOT);
+			switch(this.kind)
+			{
+				case 0:		return name.equals(this.literal);
+				case 1:		return name.endsWith(this.literal);
+				default:	return name.startsWith(this.literal);
+			}
+		}
+
+		@Override
+		int cost()
+		{
+			return NAME;
+		}
+	}
+
+	/*
+	 * -path PATTERN, -ipath PATTERN : the whole path as printed, * matches '/' too
+	 */
+	static final class PathTest extends FindExpression
+	{
+		private final Pattern pattern;
+
+		PathTest(String glob, boolean ignoreCase)
+		{
+			this.pattern = GlobExpander.regex(glob, ignoreCase);
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			return this.pattern.matcher(entry.getPath()).matches();
+		}
+
+		@Override
+		int cost()
+		{
+			return NAME;
+		}
+	}
+	/******************************************************************************************************************************/
+
+	/*****************************************************ATTRIBUTE-TESTS**********************************************************/
+	/*
+	 * -type c[,c]... : f d l p s c b
+	 */
+	static final class Type extends FindExpression
+	{
+		private final int[] types;
+
+		Type(int[] types)
+		{
+			this.types = types;
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			if(entry.isMissing()) return false;
+			int type = entry.getType();
+			for(int accepted: this.types)
+				if(type == accepted) return true;
+			return false;
+		}
+
+		@Override
+		int cost()
+		{
+			return ATTRIBUTES;
+		}
+	}
+
+	/*
+	 * -size [+-]N[bcwkMG] : the size rounded UP to the unit (512-byte blocks by default), more/less than N or exactly N
+	 */
+	static final class Size extends FindExpression
+	{
+		private final char sign;
+		private final long count;
+		private final long unit;
+
+		Size(char sign, long count, long unit)
+		{
+			this.sign = sign;
+			this.count = count;
+			this.unit = unit;
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			if(entry.isMissing()) return false;
+			long units = (entry.getSize() + this.unit - 1) / this.unit;
+			return compare(this.sign, units, this.count);
+		}
+
+		@Override
+		int cost()
+		{
+			return ATTRIBUTES;
+		}
+	}
+
+	/*
+	 * -mtime [+-]N (days), -mmin [+-]N (minutes) : age of the last modification, in whole units
+	 */
+	static final class Age extends FindExpression
+	{
+		private final char sign;
+		private final long count;
+		private final long unit;
+		private final long now;
+
+		Age(char sign, long count, long unit, long now)
+		{
+			this.sign = sign;
+			this.count = count;
+			this.unit = unit;
+			this.now = now;
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			if(entry.isMissing()) return false;
+			return compare(this.sign, Math.floorDiv(this.now - entry.getModified(), this.unit), this.count);
+		}
+
+		@Override
+		int cost()
+		{
+			return ATTRIBUTES;
+		}
+	}
+
+	/*
+	 * -newer FILE : modified after FILE (its time is read once, when the command starts)
+	 */
+	static final class Newer extends FindExpression
+	{
+		private final long modified;
+
+		Newer(long modified)
+		{
+			this.modified = modified;
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			return !entry.isMissing() && entry.getModified() > this.modified;
+		}
+
+		@Override
+		int cost()
+		{
+			return ATTRIBUTES;
+		}
+	}
+	/******************************************************************************************************************************/
+
+	/*********************************************************ACTIONS**************************************************************/
+	// -prune : true, and a directory isn't descended into
+	static final class Prune extends FindExpression
+	{
+		@Override
+		boolean test(FindEntry entry)
+		{
+			entry.prune();
+			return true;
+		}
+
+		@Override
+		int cost()
+		{
+			return ACTION;
+		}
+	}
+
+	// -print (newline), -print0 (NUL)
+	static final class Print extends FindExpression
+	{
+		private final char end;
+
+		Print(char end)
+		{
+			this.end = end;
+		}
+
+		@Override
+		boolean test(FindEntry entry)
+		{
+			entry.print(this.end);
+			return true;
+		}
+
+		@Override
+		int cost()
+		{
+			return ACTION;
+		}
+
+		@Override
+		boolean hasPrint()
+		{
+			return true;
+		}
+	}
+	/******************************************************************************************************************************/
+
+	// +N: more than N, -N: less than N, N: exactly N
+	private static boolean compare(char sign, long value, long count)
+	{
+		return sign == '+' ? value > count : sign == '-' ? value < count : value == count;
+	}
+}
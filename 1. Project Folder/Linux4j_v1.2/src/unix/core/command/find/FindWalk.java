@@ -0,0 +1,198 @@
+package unix.core.command.find;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import unix.util.OutputBuffer;
+
+/*
+ * FindWalk
+ * Walk of the trees of find, the expression evaluated on every entry:
+ * 		- every subdirectory is a task of a fork/join pool, its matches are written as soon as the directory is read
+ * 		  (each task fills its own buffer, whole lines only: the order of the lines between directories isn't fixed)
+ * 		- an entry is stat-ed only if the expression needs it, or to know whether to descend into it:
+ * 		  a directory has 2 + (number of subdirectories) links, once they are all found the other entries are files
+ * 		  [leaf optimization, off with -noleaf or when the file system doesn't count them: nlink < 2]
+ * 		- a directory is not read when it's pruned or at -maxdepth
+ * With one thread the walk is sequential, in the order of GNU find (every directory right after its entry).
+ * Links are never followed.
+ *
+ * Configuration (system property):
+ * 		linux4j.find.parallelism	number of walker threads (default 4 per core, at most 64: the walk waits on the disk)
+ */
+final class FindWalk
+{
+	public static final int PARALLELISM = Integer.getInteger("linux4j.find.parallelism",
+			Math.min(64, 4 * Runtime.getRuntime().availableProcessors()));
+
+	//Output of one task: written when full and when the directory is done
+	private static final int BUFFER = 8 * 1024;
+
+	private static volatile ForkJoinPool pool;
+
+	private final FindExpression expression;
+	private final int maxDepth;
+	private final int minDepth;
+	private final boolean noLeaf;
+	private final PrintWriter out;
+
+	FindWalk(FindExpression expression, int maxDepth, int minDepth, boolean noLeaf, PrintWriter out)
+	{
+		super();
+		this.expression = expression;
+		this.maxDepth = maxDepth;
+		this.minDepth = minDepth;
+		this.noLeaf = noLeaf;
+		this.out = out;
+	}
+
+	/*
+	 * Tree of path, shown as name
+	 */
+	void walk(String path, String name)
+	{
+		Output output = new Output();
+		FindEntry root = new FindEntry(Paths.get(path), name, name, 0, output);
+		if(root.isMissing())
+		{
+			output.row().append("find: '").append(name).append("': No such file or directory\n");
+			output.flush();
+			return;
+		}
+
+		if(this.minDepth == 0) this.expression.test(root);
+		if(this.descend(root))
+		{
+			if(PARALLELISM <= 1) this.read(root, output, null);
+			else
+			{
+				output.flush();
+				getPool().invoke(new DirectoryTask(root));
+			}
+		}
+		output.flush();
+	}
+
+	/*
+	 * Entries of the directory: tested, and its subdirectories walked right away (subdirectories null)
+	 * or added to subdirectories
+	 */
+	private void read(FindEntry directory, Output output, List<FindEntry> subdirectories)
+	{
+		//Subdirectories not found yet (-1: unknown, every entry is stat-ed)
+		int nlink = this.noLeaf ? -1 : directory.getNlink();
+		int remaining = nlink >= 2 ? nlink - 2 : -1;
+		int depth = directory.getDepth() + 1;
+		String prefix = directory.getPath().endsWith("/") ? directory.getPath() : directory.getPath() + "/";
+
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory.getFile()))
+		{
+			for(Path file: stream)
+			{
+				String name = file.getFileName().toString();
+				FindEntry entry = new FindEntry(file, prefix + name, name, depth, output);
+				if(depth >= this.minDepth) this.expression.test(entry);
+
+				//Directory? asked only while subdirectories are left, or if the expression read it already
+				if(depth >= this.maxDepth || (remaining == 0 && !entry.isLoaded())) continue;
+				if(!entry.isDirectory()) continue;
+				if(remaining > 0) remaining--;
+				if(!this.descend(entry)) continue;
+
+				if(subdirectories != null) subdirectories.add(entry);
+				else this.read(entry, output, null);
+			}
+		}
+		catch(IOException e) { this.error(output, directory.getPath(), e); }
+		catch(DirectoryIteratorException e) { this.error(output, directory.getPath(), e.getCause()); }
+	}
+
+	private boolean descend(FindEntry entry)
+	{
+		return entry.getDepth() < this.maxDepth && !entry.isPruned() && entry.isDirectory();
+	}
+
+	private void error(Output output, String path, IOException e)
+	{
+		String reason = e instanceof NoSuchFileException ? "No such file or directory"
+				: e instanceof AccessDeniedException ? "Permission denied"
+				: e.getMessage();
+		output.row().append("find: '").append(path).append("': ").append(reason).append('\n');
+		output.endRow();
+	}
+
+	private static ForkJoinPool getPool()
+	{
+		if(pool == null)
+		{
+			synchronized(FindWalk.class)
+			{
+				if(pool == null) pool = new ForkJoinPool(PARALLELISM);
+			}
+		}
+		return pool;
+	}
+
+
+
+	/*
+	 * Lines of one task, written to out in whole chunks [PrintWriter writes a chunk at once]
+	 */
+	private final class Output extends OutputBuffer implements FindEntry.Sink
+	{
+		Output()
+		{
+			super(FindWalk.this.out, BUFFER);
+		}
+
+		@Override
+		public void print(String path, char end)
+		{
+			this.row().append(path).append(end);
+			this.endRow();
+		}
+	}
+
+	/*
+	 * One directory: its entries tested and written, then its subdirectories forked
+	 */
+	private final class DirectoryTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final FindEntry directory;
+
+		DirectoryTask(FindEntry directory)
+		{
+			this.directory = directory;
+		}
+
+		@Override
+		protected void compute()
+		{
+			Output output = new Output();
+			List<FindEntry> subdirectories = new ArrayList<FindEntry>();
+			FindWalk.this.read(this.directory, output, subdirectories);
+			output.flush();
+
+			if(subdirectories.size() == 1) new DirectoryTask(subdirectories.get(0)).compute();
+			else if(!subdirectories.isEmpty())
+			{
+				List<DirectoryTask> tasks = new ArrayList<DirectoryTask>(subdirectories.size());
+				for(FindEntry subdirectory: subdirectories) tasks.add(new DirectoryTask(subdirectory));
+				invokeAll(tasks);
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package unix.core.command.locate;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import unix.core.base.Arguments;
+import unix.util.PathIndex;
+
+/*
+ * LocateArguments
+ * locate [-i] [-b] [-c] [-e] [-0] [-S] [-l N | --limit=N] [--database=FILE] PATTERN... [> out.txt]
+ */
+public class LocateArguments implements Arguments
+{
+	private ArrayList<String> patterns;
+	private String outFile;
+
+	private boolean ignoreCase;
+	private boolean basename;
+	private boolean count;
+	private boolean existing;
+	private boolean nul;
+	private boolean statistics;
+	private boolean help;
+	private int limit;
+	private String database;
+
+
+	public LocateArguments(String currentDirectory, List<String> options, ArrayList<String> secondArgument) throws Exception
+	{
+		super();
+		this.patterns = new ArrayList<String>();
+		this.database = PathIndex.DEFAULT_DATABASE;
+		this.limit = 0;
+
+		boolean limitArgument = false;
+		for (String option: options)
+		{
+			switch (option)
+			{
+				case "i": case "ignore-case":	this.ignoreCase = true; break;
+				case "b": case "basename":		this.basename = true; break;
+				case "w": case "wholename":		this.basename = false; break;
+				case "c": case "count":			this.count = true; break;
+				case "e": case "existing":		this.existing = true; break;
+				case "0": case "null":			this.nul = true; break;
+				case "S": case "statistics":	this.statistics = true; break;
+				case "help":					this.help = true; break;
+				// -l N, -n N : the limit is the first argument
+				case "l": case "n":				limitArgument = true; break;
+				default:
+					if (option.startsWith("limit=")) this.limit = limit(option.substring(6));
+					else if (option.startsWith("database=")) this.database = Paths.get(currentDirectory).resolve(option.substring(9)).toString();
+					else if (option.length() == 1) throw new IllegalArgumentException("locate: invalid option -- '" + option + "'");
+					else throw new IllegalArgumentException("locate: unrecognized option '--" + option + "'");
+			}
+		}
+
+		//Get Patterns and OUT-file
+		Boolean isOutFile=false;
+		for (String arg: secondArgument)
+		{
+			if (isOutFile) this.outFile=arg;
+			else if (arg.equals(">")) isOutFile=true;
+			else if (limitArgument) {this.limit = limit(arg); limitArgument=false;}
+			else this.patterns.add(arg);
+		}
+		if (limitArgument) throw new IllegalArgumentException("locate: option requires an argument -- 'l'");
+
+		if (this.patterns.isEmpty() && !this.statistics && !this.help)
+			throw new IllegalArgumentException("locate: no pattern to search for specified");
+	}
+
+	private static int limit(String value)
+	{
+		try
+		{
+			int limit = Integer.parseInt(value);
+			if (limit >= 0) return limit;
+		}
+		catch (NumberFormatException e) {}
+		throw new IllegalArgumentException("locate: invalid limit '" + value + "'");
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	@Override
+	public String getOutFile() {
+		return outFile;
+	}
+
+	public ArrayList<String> getPatterns() {
+		return patterns;
+	}
+
+	public boolean isIgnoreCase() {
+		return ignoreCase;
+	}
+
+	public boolean isBasename() {
+		return basename;
+	}
+
+	public boolean isCount() {
+		return count;
+	}
+
+	public boolean isExisting() {
+		return existing;
+	}
+
+	public boolean isNul() {
+		return nul;
+	}
+
+	public boolean isStatistics() {
+		return statistics;
+	}
+
+	public boolean isHelp() {
+		return help;
+	}
+
+	// 0: no limit
+	public int getLimit() {
+		return limit;
+	}
+
+	public String getDatabase() {
+		return database;
+	}
+	/************************************************************************************************************************/
+}
@@ -0,0 +1,120 @@
+package unix.core.command.locate;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.TreeMap;
+
+import unix.core.base.CommandParser;
+import unix.core.base.SpecificCommandBuilder;
+import unix.util.PathIndex;
+
+/*
+ * LocateCommandBuilder
+ * locate: the paths of the index [updatedb] matching any of the patterns, in index order. The index is memory-mapped
+ * and only the candidates of the pattern's literal are decoded: nothing is read from the file systems (except with -e).
+ */
+public class LocateCommandBuilder implements SpecificCommandBuilder
+{
+	public void execute(CommandParser command, PrintWriter out) throws Exception
+	{
+		LocateArguments locateArg = (LocateArguments) command.getArguments();
+
+		if (locateArg.isHelp())
+		{
+			this.printHelp(out);
+			return;
+		}
+
+		PathIndex index;
+		try { index = PathIndex.open(Paths.get(locateArg.getDatabase())); }
+		catch (NoSuchFileException e) { out.println("locate: " + locateArg.getDatabase() + ": No such file or directory (run updatedb)"); return; }
+		catch (IOException e) { out.println("locate: " + locateArg.getDatabase() + ": " + e.getMessage()); return; }
+
+		// -S, --statistics
+		if (locateArg.isStatistics())
+		{
+			this.printStatistics(index, out);
+			if (locateArg.getPatterns().isEmpty()) return;
+		}
+
+		ArrayList<LocatePattern> patterns = new ArrayList<LocatePattern>();
+		for (String pattern: locateArg.getPatterns()) patterns.add(new LocatePattern(pattern, locateArg.isIgnoreCase(), locateArg.isBasename()));
+
+		final int limit = locateArg.getLimit() > 0 ? locateArg.getLimit() : Integer.MAX_VALUE;
+		final char separator = locateArg.isNul() ? '\0' : '\n';
+		final boolean print = !locateArg.isCount();
+		final boolean existing = locateArg.isExisting();
+		final int[] found = {0};
+
+		if (patterns.size() == 1)
+		{
+			//One pattern: printed while the index is read, the search stops at the limit
+			LocatePattern pattern = patterns.get(0);
+			index.candidates(pattern.getLiteral(), locateArg.isBasename(), (id, path) -> {
+				if (!pattern.matches(path) || (existing && !exists(path))) return true;
+				if (print) out.print(path + separator);
+				return ++found[0] < limit;
+			});
+		}
+		else
+		{
+			//Several patterns: any of them, in index order and each path once
+			TreeMap<Integer, String> matches = new TreeMap<Integer, String>();
+			for (LocatePattern pattern: patterns)
+				index.candidates(pattern.getLiteral(), locateArg.isBasename(), (id, path) -> {
+					if (!matches.containsKey(id) && pattern.matches(path) && (!existing || exists(path))) matches.put(id, path);
+					return true;
+				});
+			for (String path: matches.values())
+			{
+				if (found[0] == limit) break;
+				if (print) out.print(path + separator);
+				found[0]++;
+			}
+		}
+
+		// -c, --count
+		if (locateArg.isCount()) out.println(found[0]);
+	}
+
+	private static boolean exists(String path)
+	{
+		return Files.exists(Paths.get(path), LinkOption.NOFOLLOW_LINKS);
+	}
+
+	private void printStatistics(PathIndex index, PrintWriter out)
+	{
+		out.println("Database " + index.getFile() + ":");
+		out.println("\t" + index.getDirectoryCount() + " directories");
+		out.println("\t" + (index.getPathCount() - index.getDirectoryCount()) + " files");
+		out.println("\t" + index.getTrigramCount() + " name trigrams");
+		out.println("\t" + index.getSize() + " bytes in index");
+		out.println("\tbuilt " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(index.getBuilt())) + " from " + String.join(", ", index.getRoots()));
+	}
+
+	public void printHelp(PrintWriter out)
+	{
+		out.println("Usage: locate [OPTION]... PATTERN...");
+		out.println("Search the index built by updatedb for paths matching any of the PATTERNs.");
+		out.println("A PATTERN without wildcards matches any path that contains it, with * ? [...] {a,b}");
+		out.println("it must match the whole path (* matches / too).");
+		out.println();
+		out.println("  -b, --basename         match the PATTERNs against the names only");
+		out.println("  -c, --count            only print the number of matching paths");
+		out.println("      --database=FILE    search FILE instead of " + PathIndex.DEFAULT_DATABASE);
+		out.println("  -e, --existing         only print the paths that still exist");
+		out.println("  -i, --ignore-case      ignore case distinctions");
+		out.println("  -l, -n N, --limit=N    stop after N matches");
+		out.println("  -0, --null             separate the paths with NUL instead of newline");
+		out.println("  -S, --statistics       print statistics about the index");
+		out.println("  -w, --wholename        match the PATTERNs against the whole paths (default)");
+		out.println("      --help             display this help and exit");
+	}
+}
@@ -0,0 +1,71 @@
+package unix.core.command.locate;
+
+import java.util.regex.Pattern;
+
+import unix.util.GlobExpander;
+import unix.util.PathIndex;
+
+/*
+ * LocatePattern
+ * A pattern of locate, compiled once:
+ * 		- without any wildcard:		contained anywhere in the path (or the name with -b)
+ * 		- with * ? [...] {a,b}:		the whole path (or name), * also matches '/'
+ * Its longest literal without '/' is what the index is searched for (the other candidates can't match).
+ */
+final class LocatePattern
+{
+	private final String text;
+	private final boolean ignoreCase;
+	private final boolean basename;
+	private final Pattern glob;
+	private final String literal;
+
+	LocatePattern(String text, boolean ignoreCase, boolean basename)
+	{
+		super();
+		this.ignoreCase = ignoreCase;
+		this.basename = basename;
+		boolean wildcard = false;
+		for (int i=0; i<text.length() && !wildcard; i++) wildcard = "*?[{".indexOf(text.charAt(i)) >= 0;
+		this.text = ignoreCase ? PathIndex.fold(text) : text;
+		this.glob = wildcard ? GlobExpander.regex(text, ignoreCase) : null;
+		this.literal = literal(text);
+	}
+
+	boolean matches(String path)
+	{
+		String subject = this.basename ? PathIndex.name(path) : path;
+		if (this.glob != null) return this.glob.matcher(subject).matches();
+		return (this.ignoreCase ? PathIndex.fold(subject) : subject).contains(this.text);
+	}
+
+	/*
+	 * Longest run of plain characters, outside of [...] and {...} and without '/' (null if there is none)
+	 */
+	private static String literal(String text)
+	{
+		String longest = null;
+		int start = -1, nesting = 0;
+		for (int i=0; i<=text.length(); i++)
+		{
+			char c = i < text.length() ? text.charAt(i) : '/';
+			boolean plain = nesting == 0 && "*?[]{}\\/".indexOf(c) < 0;
+			if (c == '[' || c == '{') nesting++;
+			if ((c == ']' || c == '}') && nesting > 0) nesting--;
+
+			if (plain && start < 0) start = i;
+			if (!plain && start >= 0)
+			{
+				if (longest == null || i - start > longest.length()) longest = text.substring(start, i);
+				start = -1;
+			}
+		}
+		return longest;
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	String getLiteral() {
+		return literal;
+	}
+	/************************************************************************************************************************/
+}
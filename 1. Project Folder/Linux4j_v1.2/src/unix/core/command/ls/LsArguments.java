@@ -2,14 +2,14 @@ package unix.core.command.ls;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 import unix.core.base.Arguments;
+import unix.util.GlobExpander;
 
 public class LsArguments implements Arguments
 {
-	private Map<String,String> options;
+	private LsOptions options;
 	private ArrayList<String> directories;
 	
 	private String outFile; 
@@ -18,6 +18,11 @@ public class LsArguments implements Arguments
 	private Boolean markDirectories;
 	private String wildcards;
 	
+	//Operands that aren't directories (relative to the Shell-Directory), and globs without any match
+	private String currentDirectory;
+	private ArrayList<String> files;
+	private ArrayList<String> unmatched;
+	
 	
 	public LsArguments() {
 		super();
@@ -26,28 +31,29 @@ public class LsArguments implements Arguments
 
 
 	public LsArguments(String currentDirectory, ArrayList<String> optionsArray, ArrayList<String> secondArgument) throws Exception 
+	{
+		// Set OptionsArray --> LS-Options resolved once (aliases merged, implied options applied)
+		// Ex. ls -l 					---> has(LONG)
+		// Ex. ls --block-size=M 		---> value(BLOCK_SIZE) = M
+		this(currentDirectory, LsOptions.parse(optionsArray), secondArgument);
+	}
+	
+	/*
+	 * options: already resolved [CommandPlan], shared by every execution of the same command line
+	 */
+	public LsArguments(String currentDirectory, LsOptions options, ArrayList<String> secondArgument) throws Exception 
 	{
 		super();
 		this.directories = new ArrayList<String>();
 		this.listAllSubdir=false;
 		this.markDirectories=false;
 		this.wildcards=null;
+		this.currentDirectory = currentDirectory;
+		this.files = new ArrayList<String>();
+		this.unmatched = new ArrayList<String>();
+		ArrayList<String> globs = new ArrayList<String>();
 		
-		//Generate Empty LS-Options with false-value
-		this.options = this.initiateLsOptions();
-		
-		// Set OptionsArray --> Options Map (value/boolean)
-		// Ex. ls -l 					---> boolean(l) = true
-		// Ex. ls --block-size=M 		---> value(block-size) = M
-		for(String option : optionsArray) 
-		{
-			String[] optionWithParam = option.split("=");
-			if(optionWithParam.length==1 || (optionWithParam.length>1 && optionWithParam[1].equals("")))
-			{
-				if(this.options.replace(option, "true")==null) throw new Exception();
-			}
-			else this.options.replace(optionWithParam[0], optionWithParam[1]);
-		}
+		this.options = options;
 		
 		
 		//Get Directories, additional options and OUT-file
@@ -63,8 +69,8 @@ public class LsArguments implements Arguments
 				//Option Mark Directories == ls -d */
 				else if(arg.length()==2 && arg.charAt(0)=='*' && arg.charAt(1)=='/') {this.markDirectories=true; continue;}
 				
-				//Search with Wildcard == ls *.txt
-				else if(arg.indexOf('*')>=0) {this.wildcards=arg; continue;}
+				//Search with Wildcard == ls *.txt , ls logs/2026-*/**/*.gz , ls *.{log,txt}
+				else if(GlobExpander.isGlob(arg)) {globs.add(arg); continue;}
 				
 				//Save result to outputFile == ls > out.txt
 				if(arg.length()==1 && arg.charAt(0)=='>') {isOutFile=true; continue;}
@@ -86,107 +92,54 @@ public class LsArguments implements Arguments
 				//Relative-Absolute Path == ls Desktop , ls C:/Users/
 				if ( arg.charAt(0) == '/' || (arg.length()>2 && arg.charAt(1) == ':' && arg.charAt(2) == '\\'))
 				{
-					this.directories.add(new File(arg).getAbsolutePath());
+					this.addOperand(new File(arg).getAbsolutePath(), arg);
 				}
 				else
 				{
-					this.directories.add(currentDirectory+"/"+arg);
+					this.addOperand(currentDirectory+"/"+arg, arg);
 				}
 			}
 		}
 		
+		//One pattern in the Shell-Directory, and no other operand: filter of its listing [names pushed down]
+		//(decided on the arguments only, an empty listing is reported as a pattern without match [LsCommandBuilder];
+		// .* patterns are expanded: the listing would hide their matches)
+		if (globs.size()==1 && globs.get(0).indexOf('/')<0 && globs.get(0).charAt(0)!='.'
+				&& this.directories.isEmpty() && this.files.isEmpty()) this.wildcards=globs.get(0);
+		//Paths and several patterns: expanded in ONE traversal, directories listed with their content, files themselves
+		else if (globs.size()>0) this.expand(currentDirectory, globs);
+		
 		//IF no Directory was specified, use Shell-Directory
-		if (this.directories.size()==0) this.directories.add(currentDirectory);
+		if (this.directories.size()==0 && this.files.size()==0 && this.unmatched.size()==0) this.directories.add(currentDirectory);
 		
 	}
 	
 	
 	
-	public Map<String,String> initiateLsOptions()
+	private void expand(String currentDirectory, List<String> globs)
 	{
-		Map<String,String> options = new HashMap<String,String>();
-		
-		options.put("a", "false"); options.put("all", "false");
-		options.put("A", "false"); options.put("almost-all", "false");
-		options.put("author", "false");
-		// -b, --escape               
-		options.put("block-size", "false");
-		options.put("B", "false"); options.put("ignore-backups", "false");
-		options.put("c", "false");
-		options.put("C", "false");
-		// --color[=WHEN]         
-		options.put("d", "false"); options.put("directory", "false");
-		// -D, --dired                
-		options.put("f", "false");
-		options.put("F", "false"); options.put("classify", "false");
-		options.put("file-type", "false");
-		options.put("format", "false");
-		options.put("full-time", "false");
-		options.put("g", "false");
-		options.put("group-directories-first", "false");
-		options.put("G", "false"); options.put("no-group", "false");
-		options.put("h", "false"); options.put("human-readable", "false");
-		options.put("si", "false");
-		// -H, --dereference-command-line
-		// --dereference-command-line-symlink-to-dir
-		// --hide=PATTERN         
-		options.put("indicator-style", "false");
-		// -i, --inode        
-		// -I, --ignore=PATTERN       
-		// -k, --kibibytes            
-		options.put("l", "false");
-		options.put("L", "false"); options.put("dereference", "false");
-		options.put("m", "false");
-		// -n, --numeric-uid-gid      
-		options.put("N", "false"); options.put("literal", "false");
-		options.put("o", "false");
-		options.put("p", "false");
-		// -q, --hide-control-chars   
-		// --show-control-chars   
-		options.put("Q", "false"); options.put("quote-name", "false");
-		options.put("quoting-style", "false");
-		options.put("r", "false");
-		// -R, --recursive            
-		options.put("s", "false"); options.put("size", "false");
-		options.put("S", "false");
-		options.put("sort", "false");
-		options.put("time", "false");
-		options.put("time-style", "false");
-		options.put("t", "false");
-		// -T, --tabsize=COLS         
-		options.put("u", "false");
-		options.put("U", "false");
-		// -v                         
-		options.put("w", "false");
-		options.put("x", "false");
-		options.put("X", "false");
-		// -Z, --context              
-		options.put("1", "false");
-		// --append-exe           
-		options.put("help", "false");
-		// --version  
-		
-		return options;
-		
+		//Patterns matching nothing are reported (an empty result would look like an empty directory)
+		for (String match: GlobExpander.expand(currentDirectory, globs, this.unmatched))
+			this.addOperand(match.startsWith("/") ? match : currentDirectory+"/"+match, match);
+	}
+	
+	/*
+	 * path: absolute path of the operand, name: the operand as written (shown for files)
+	 */
+	private void addOperand(String path, String name)
+	{
+		if (new File(path).isFile()) this.files.add(name);
+		else this.directories.add(path);
 	}
-
-
-
 	
 	/**************************************************SETTERS/GETTERS********************************************************/
-	public Map<String, String> getOptions() {
+	public LsOptions getOptions() {
 		return options;
 	}
-	public void setOptions(Map<String, String> options) {
+	public void setOptions(LsOptions options) {
 		this.options = options;
 	}
 
-	public Map<String, String> put(String key, String value)
-	{
-		this.options.put(key, value);
-		return this.options;
-	}
-
 	public ArrayList<String> getDirectories() {
 		return directories;
 	}
@@ -222,6 +175,24 @@ public class LsArguments implements Arguments
 		this.wildcards = wildcards;
 	}
 	
+	public String getCurrentDirectory() {
+		return currentDirectory;
+	}
+	
+	public ArrayList<String> getFiles() {
+		return files;
+	}
+	public void setFiles(ArrayList<String> files) {
+		this.files = files;
+	}
+	
+	public ArrayList<String> getUnmatched() {
+		return unmatched;
+	}
+	public void setUnmatched(ArrayList<String> unmatched) {
+		this.unmatched = unmatched;
+	}
+	
 	
 	
 }
@@ -1,24 +1,42 @@
 package unix.core.command.ls;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
 
-import unix.core.base.CommandParser;
+import unix.core.command.ls.LsSorter.SortKey;
+import unix.util.AttributeLoader;
+import unix.util.FileAttribute;
 import unix.util.FileInfo;
+import unix.util.LinkResolver;
+import unix.util.ListingCache;
+import unix.util.OutputBuffer;
 
 public class LsCommand 
 {
 	private String directory;
 	private ArrayList<FileInfo> filesList ;
+	private Set<FileAttribute> demand;
 	
 	//OptionsAttributes
 	private Boolean noOwner;
 	private Boolean noGroup;
 	private Boolean noAuthor;
+	private Boolean numericIds;
 	
 	private Boolean isoTime;
 	private String fileIndicator;
@@ -27,36 +45,90 @@ public class LsCommand
 	private String quoting;
 	private Boolean allocatedSize;
 	private Boolean showAccessTime;
+	private Boolean showChangeTime;
 	
-	private Boolean listSubDir;
+	private String title;
+	private Boolean dereference;
+	private LinkResolver linkResolver;
+	
+	//Streaming mode [-U, -f]: entries are read, filtered and printed one by one, filesList only holds . and ..
+	private Boolean streaming;
+	private ArrayList<Predicate<FileInfo>> filters;
+	//Name-only filters, applied to the raw names while the directory is read (before any stat)
+	private LsNameFilter nameFilter;
+	//The directory isn't read until the listing is needed
+	private Boolean pendingRead;
+	private ListingCache cache;
+	//Explicit operands [ls a.txt logs/*.gz]: the entries are given, the directory is never read
+	private Boolean operands;
+	//Why the directory couldn't be read (null if it was), reported once the listing is displayed
+	private IOException readError;
+	
+	private LsSorter sorter;
+	private Boolean sorted;
+	private int maxEntries;
+	
+	//Display options compiled once, shared by the listings of a command [-R]
+	private LsRenderPlan renderPlan;
+	
+	private static final Set<FileAttribute> NAME_ONLY = EnumSet.noneOf(FileAttribute.class);
 	
 	
 	public LsCommand(String directory) throws Exception 
+	{
+		this(directory, EnumSet.allOf(FileAttribute.class));
+	}
+	
+	/*
+	 * demand: attributes needed by the chosen filters/sorters/view, read up-front for every entry
+	 * 		   (an empty demand lists names only, without any stat call)
+	 */
+	public LsCommand(String directory, Set<FileAttribute> demand) throws Exception 
+	{
+		this(directory, demand, false);
+	}
+	
+	/*
+	 * streaming: don't keep the directory in memory, the views read it while printing (only for unsorted listings)
+	 */
+	public LsCommand(String directory, Set<FileAttribute> demand, boolean streaming) throws Exception 
+	{
+		this(directory, demand, streaming, null);
+	}
+	
+	/*
+	 * cache: directory snapshots of the Shell session, the entries of an unchanged directory are reused (null to always read)
+	 */
+	public LsCommand(String directory, Set<FileAttribute> demand, boolean streaming, ListingCache cache) throws Exception 
 	{
 		super();
 		this.directory=directory;
 		this.filesList = new ArrayList<FileInfo>();
+		this.demand = demand;
+		this.streaming = streaming;
+		this.filters = new ArrayList<Predicate<FileInfo>>();
+		this.nameFilter = new LsNameFilter();
+		this.sorter = new LsSorter();
+		this.sorted = true;
+		this.maxEntries = 0;
 		
 		//Add DIRECTORY and PARENT
-		FileInfo currentDir = new FileInfo(new File(directory));
+		FileInfo currentDir = new FileInfo(new File(directory), true, NAME_ONLY);
 		currentDir.setName(".");
         this.filesList.add(currentDir);
-        this.filesList.add(new FileInfo(new File(directory+"/..")));
+        this.filesList.add(new FileInfo(new File(directory+"/.."), true, NAME_ONLY));
         
-        //Add Directory's internal content
-		File dir = new File(directory);
-        String directoryFiles[] = dir.list();
-        if(directoryFiles!=null)
-	        for(String file: directoryFiles)
-	        {
-	            this.filesList.add(new FileInfo(new File(directory + "/" + file )));
-	        }
+        //Directory's internal content is read once every filter is known (see read)
+        this.cache = cache;
+        this.pendingRead = !streaming;
+        this.operands = false;
         
         
         //OptionsAttributes
         this.noOwner = false;
         this.noGroup = false;
         this.noAuthor=true;
+        this.numericIds=false;
         
         this.isoTime = false;
         this.fileIndicator="none";
@@ -65,21 +137,15 @@ public class LsCommand
         this.quoting="shell";
         this.allocatedSize=false;
         this.showAccessTime=false;
-        this.listSubDir=false;
+        this.showChangeTime=false;
+        this.title=(new File(directory)).getName();
+        this.dereference=false;
 	}
 
 	/************************************************SEARCH-WILDCARD***************************************************************/
 	public LsCommand searchPattern(String wildCard)
 	{
-		wildCard = wildCard.replaceAll("\\*", ".*");
-		
-		Iterator<FileInfo> iter = this.filesList.iterator();
-		while(iter.hasNext())
-		{
-			FileInfo file = iter.next();
-			if(!file.getName().matches(wildCard)) iter.remove();
-		}
-		return this;
+		return this.filterName(LsNameFilter.glob(wildCard));
 	}
 	/******************************************************************************************************************************/
 	
@@ -89,53 +155,98 @@ public class LsCommand
 	 */
 	public LsCommand directory()
 	{
+		if(this.operands) return this;
 		ArrayList<FileInfo> newFilesList = new ArrayList<FileInfo>();
-		newFilesList.add(new FileInfo(new File(directory)));
+		newFilesList.add(new FileInfo(new File(directory), false, this.demand));
 		this.filesList = newFilesList;
+		this.streaming = false;
+		this.pendingRead = false;
 		
 		return this;
 	}
 	
 	/*
-	 * -B, --ignore-backups       do not list implied entries ending with ~
+	 * ls a.txt sub/*.log			list the given files (paths relative to the directory), whatever their name, without a title
 	 */
-	public LsCommand ignoreBackups()
+	public LsCommand files(List<String> paths)
 	{
-		Iterator<FileInfo> iter = this.filesList.iterator();
-		while(iter.hasNext())
+		ArrayList<FileInfo> newFilesList = new ArrayList<FileInfo>(paths.size());
+		for(String path: paths)
 		{
-			FileInfo file = iter.next();
-			if(file.getName().charAt(file.getName().length()-1) == '~') iter.remove();
+			FileInfo file = new FileInfo(new File(path.startsWith("/") ? path : this.directory + "/" + path), false, NAME_ONLY);
+			file.setName(path);
+			newFilesList.add(file);
 		}
+		this.filesList = newFilesList;
+		this.streaming = false;
+		this.pendingRead = true;
+		this.operands = true;
+		this.title = null;
+		
 		return this;
 	}
 	
+	/*
+	 * ls *							directories are listed with their own content, not as entries
+	 */
+	public LsCommand noDirectories()
+	{
+		return this.filter(file -> !file.isDirectory());
+	}
+	
+	/*
+	 * -B, --ignore-backups       do not list implied entries ending with ~
+	 */
+	public LsCommand ignoreBackups()
+	{
+		return this.filterName(LsNameFilter::notBackup);
+	}
+	
 	/*
 	 * -A, --almost-all           do not list implied . and ..
 	 */
 	public LsCommand almostAll()
 	{
+		return this.filterName(LsNameFilter::notImplied);
+	}
+	
+	/*
+	 * default listing			ignore entries starting with .
+	 */
+	public LsCommand defaultListing()
+	{
+		return this.filterName(LsNameFilter::visible);
+	}
+	
+	/*
+	 * Keep the entries whose name is accepted by filter: pushed down into the directory read, the rejected entries are never stat-ed
+	 */
+	private LsCommand filterName(Predicate<String> filter)
+	{
+		//Name rules are for the content of directories, operands are always listed
+		if(this.operands) return this;
 		Iterator<FileInfo> iter = this.filesList.iterator();
 		while(iter.hasNext())
 		{
-			FileInfo file = iter.next();
-			if(file.getName().equals(".") || file.getName().equals("..")) iter.remove();
+			if(!filter.test(iter.next().getName())) iter.remove();
 		}
-		
+		this.nameFilter.add(filter);
 		return this;
 	}
 	
 	/*
-	 * default listing			ignore entries starting with .
+	 * Keep the entries accepted by filter (on attributes: applied once the entries read from the directory are loaded)
 	 */
-	public LsCommand defaultListing()
+	private LsCommand filter(Predicate<FileInfo> filter)
 	{
 		Iterator<FileInfo> iter = this.filesList.iterator();
 		while(iter.hasNext())
 		{
 			FileInfo file = iter.next();
-			if(file.getName().charAt(0) == '.') iter.remove();
+			if(!filter.test(file)) iter.remove();
 		}
+		//Kept for the entries read later [pending read, streaming, --watch]
+		this.filters.add(filter);
 		return this;
 	}
 	
@@ -143,13 +254,28 @@ public class LsCommand
 
 
 	/****************************************************SORTERS*******************************************************************/
+	/*
+	 * default                    sort alphabetically (current locale)
+	 */
+	public LsCommand sortByName()
+	{
+		return this.sortBy(SortKey.NAME);
+	}
+	
+	/*
+	 * -v                         natural sort of (version) numbers within text
+	 */
+	public LsCommand sortByVersion()
+	{
+		return this.sortBy(SortKey.VERSION);
+	}
+	
 	/*
 	 * -t                         sort by modification time, newest first
 	 */
 	public LsCommand sortByModificationTime()
 	{
-		Collections.sort(this.filesList, FileInfo.fileModificationTimeComparator);
-		return this;
+		return this.sortBy(SortKey.MODIFICATION_TIME);
 	}
 	
 	/*
@@ -157,8 +283,15 @@ public class LsCommand
 	 */
 	public LsCommand sortByAccessTime()
 	{
-		Collections.sort(this.filesList, FileInfo.fileAccessTimeComparator);
-		return this;
+		return this.sortBy(SortKey.ACCESS_TIME);
+	}
+	
+	/*
+	 * -c                         sort by ctime, newest first
+	 */
+	public LsCommand sortByChangeTime()
+	{
+		return this.sortBy(SortKey.CHANGE_TIME);
 	}
 	
 	/*
@@ -166,8 +299,7 @@ public class LsCommand
 	 */
 	public LsCommand sortBySize()
 	{
-		Collections.sort(this.filesList, FileInfo.fileSizeComparator);
-		return this;
+		return this.sortBy(SortKey.SIZE);
 	}
 	
 	/*
@@ -175,8 +307,7 @@ public class LsCommand
 	 */
 	public LsCommand sortByExtension()
 	{
-		Collections.sort(this.filesList, FileInfo.fileExtensionComparator);
-		return this;
+		return this.sortBy(SortKey.EXTENSION);
 	}
 	
 	/*
@@ -184,7 +315,8 @@ public class LsCommand
 	 */
 	public LsCommand reverseSort()
 	{
-		Collections.reverse(this.filesList);
+		this.sorter.setReverse(true);
+		this.sorted=false;
 		return this;
 	}
 	
@@ -193,7 +325,29 @@ public class LsCommand
 	 */
 	public LsCommand directoriesFirst()
 	{
-		Collections.sort(this.filesList, FileInfo.fileDirectoryComparator);
+		this.sorter.setDirectoriesFirst(true);
+		this.sorted=false;
+		return this;
+	}
+	
+	/*
+	 * --max-entries=N            list only the first N entries of the sorted listing 
+	 * 							  (in streaming mode, only N entries are kept while the directory is read)
+	 */
+	public LsCommand maxEntries(int maxEntries)
+	{
+		this.maxEntries=maxEntries;
+		this.sorted=false;
+		return this;
+	}
+	
+	/*
+	 * The last sort key wins, every sort option is applied in ONE pass when the listing is displayed
+	 */
+	private LsCommand sortBy(SortKey key)
+	{
+		this.sorter.setKey(key);
+		this.sorted=false;
 		return this;
 	}
 	/******************************************************************************************************************************/
@@ -227,6 +381,15 @@ public class LsCommand
 		return this;
 	}
 	
+	/*
+	 * -n, --numeric-uid-gid      list numeric user and group IDs
+	 */
+	public LsCommand numericIds()
+	{
+		this.numericIds=true;
+		return this;
+	}
+	
 	/*
 	 * -s, --size                 print the allocated size of each file, in blocks
 	 */
@@ -246,11 +409,20 @@ public class LsCommand
 	}
 	
 	/*
-	 * ls *							list subdir
+	 * -c                         show ctime (time of last modification of file status information)
+	 */
+	public LsCommand showChangeTime()
+	{
+		this.showChangeTime=true;
+		return this;
+	}
+	
+	/*
+	 * -R, ls *						heading of the long view (the path of the listed directory)
 	 */
-	public LsCommand listSubDir()
+	public LsCommand title(String title)
 	{
-		this.listSubDir=true;
+		this.title=title;
 		return this;
 	}
 	/******************************************************************************************************************************/
@@ -291,14 +463,18 @@ public class LsCommand
 	 */
 	public LsCommand dereference() throws IOException
 	{
-		for(FileInfo file: this.filesList)
-		{
-			if(file.isSymLink())
-			{
-				FileInfo targetFile = new FileInfo(new File(file.getSymLink()));
-				this.filesList.set(this.filesList.indexOf(file), targetFile);
-			}
-		}
+		return this.dereference(new LinkResolver(this.demand));
+	}
+	
+	/*
+	 * resolver: shared by the listings of one command, each target is read once
+	 */
+	public LsCommand dereference(LinkResolver resolver) throws IOException
+	{
+		this.dereference=true;
+		this.linkResolver=resolver;
+		this.read();
+		resolver.resolveAll(this.filesList);
 		return this;
 	}
 	
@@ -315,169 +491,358 @@ public class LsCommand
 	/******************************************************************************************************************************/
 	
 	/******************************************************DISPLAY*****************************************************************/
-	public void longView(CommandParser command, PrintWriter out) throws IOException, ParseException
+	public void longView(PrintWriter out) throws IOException, ParseException
 	{
-		
-		//Normal view, no subdir Listing
-		if(!this.listSubDir)
-		{
-			out.println( (new File(directory)).getName() + ":\n" );
-			for(FileInfo file: this.filesList) this.detailedLine(file, out);
-		}
-		else
+		LsRenderPlan plan = this.getRenderPlan();
+		OutputBuffer buffer = new OutputBuffer(out);
+		if(this.title != null) buffer.row().append(this.title).append(':').append(OutputBuffer.NEWLINE).append(OutputBuffer.NEWLINE);
+		try(Entries entries = new Entries())
 		{
-			out.println( (new File(directory)).getName() + ":\n" );
-			
-			//List all non-directories and symlinks
-			for(FileInfo file: this.filesList)
+			for(FileInfo file: entries)
 			{
-				if(!file.isDirectory() || file.isSymLink()) this.detailedLine(file, out);
-					
+				plan.detailedLine(file, buffer.row());
+				buffer.endRow();
 			}
-			
-			//List Subdir of all directories
-			for(FileInfo file: this.filesList)
+		}
+		buffer.flush();
+	}
+	
+	/*
+	 * --format=jsonl|csv|nul		one record per entry, streamed like -1 (no heading)
+	 */
+	public void recordView(LsRecordFormat format, PrintWriter out) throws IOException
+	{
+		OutputBuffer buffer = new OutputBuffer(out);
+		try(Entries entries = new Entries())
+		{
+			for(FileInfo file: entries)
 			{
-				if(file.isDirectory() && !file.isSymLink())
-				{
-					LsCommandBuilder lsBuilder = new LsCommandBuilder();
-					
-					// Disable the subdir option or will get a cascading loop
-					LsArguments lsArg = (LsArguments) command.getArguments();
-					lsArg.setListAllSubdir(false);
-					
-					//Update directory to subDir
-					ArrayList<String> subDir= new ArrayList<String>();
-					subDir.add(file.getAbsolutePath());
-					lsArg.setDirectories(subDir);
-					
-					command.setArguments(lsArg);
-					
-					try {
-						lsBuilder.execute(command, out);
-					} catch (Exception e) {}
-				}	
+				format.record(file, buffer.row());
+				buffer.endRow();
 			}
 		}
-		
+		buffer.flush();
 	}
 	
 	public void singleColumnView(PrintWriter out) throws IOException, ParseException
 	{
-		for(FileInfo file: this.filesList)
+		LsRenderPlan plan = this.getRenderPlan();
+		OutputBuffer buffer = new OutputBuffer(out);
+		try(Entries entries = new Entries())
 		{
-			if(this.allocatedSize)
+			for(FileInfo file: entries)
 			{
-				//Minimum scale for allocatedSize is KB
-				if(this.sizeScale.equals("B"))
-					out.printf("%15.15s ",file.getFormatedSize("K", this.sizePower));
-				else
-					out.printf("%15.15s ",file.getFormatedSize(this.sizeScale, this.sizePower));
+				StringBuilder row = buffer.row();
+				if(plan.hasAllocatedSize()) plan.allocatedSize(file, row);
+				plan.name(file, row).append(OutputBuffer.NEWLINE);
+				buffer.endRow();
 			}
-				
-			out.printf("%s",file.getFormatedName(this.quoting));
-			out.printf("%s",file.getFileIndicator(this.fileIndicator));
-			out.printf("%n");
 		}
+		buffer.flush();
 	}
 	
 	public void verticalView(String widthParam, PrintWriter out) throws IOException
 	{
-		String width;
+		this.materialize();
+		LsRenderPlan plan = this.getRenderPlan();
+		OutputBuffer buffer = new OutputBuffer(out);
+		int fixedWidth = Integer.parseInt(widthParam);
 		int filePerCol=(this.filesList.size()/5) + 1;
 		int[] noLimitWidth = this.verticalColumnWidth();
 		FileInfo file;
 		for(int i=0; i<filePerCol; i++)
 		{
+			StringBuilder row = buffer.row();
 			for(int j=0; j<5; j++)
 			{
 				if(i+filePerCol*j > this.filesList.size()-1) break;
 				
 				file=this.filesList.get(i+filePerCol*j);
-				if(this.allocatedSize)
-				{
-					//Minimum scale for allocatedSize is KB
-					if(this.sizeScale.equals("B"))
-						out.printf("%15.15s ",file.getFormatedSize("K", this.sizePower));
-					else
-						out.printf("%15.15s ",file.getFormatedSize(this.sizeScale, this.sizePower));
-				}
-				
-				if(widthParam.equals("0")) width = Integer.toString(noLimitWidth[j]);
-				else width = widthParam;
+				if(plan.hasAllocatedSize()) plan.allocatedSize(file, row);
 				
-				out.printf("%-"+width+"."+width+"s",
-						file.getFormatedName(this.quoting)+file.getFileIndicator(this.fileIndicator));
+				plan.paddedName(file, row, fixedWidth == 0 ? noLimitWidth[j] : fixedWidth);
 			}
 
-			out.printf("%n");
+			row.append(OutputBuffer.NEWLINE);
+			buffer.endRow();
 		}
-		out.printf("%n");
+		buffer.row().append(OutputBuffer.NEWLINE);
+		buffer.flush();
 	}
 	
 	public void horizontalView(String widthParam, PrintWriter out) throws IOException
 	{
+		this.materialize();
+		LsRenderPlan plan = this.getRenderPlan();
+		OutputBuffer buffer = new OutputBuffer(out);
+		int fixedWidth = Integer.parseInt(widthParam);
 		int counter=0;
 		int[] noLimitWidth = horizontalColumnWidth();
-		String width;
 		for(FileInfo file : this.filesList)
 		{
-			if(this.allocatedSize)
-			{
-				//Minimum scale for allocatedSize is KB
-				if(this.sizeScale.equals("B"))
-					out.printf("%15.15s ",file.getFormatedSize("K", this.sizePower));
-				else
-					out.printf("%15.15s ",file.getFormatedSize(this.sizeScale, this.sizePower));
-			}
+			StringBuilder row = buffer.row();
+			if(plan.hasAllocatedSize()) plan.allocatedSize(file, row);
 			
-			if(widthParam.equals("0")) width = Integer.toString(noLimitWidth[counter%5]);
-			else width = widthParam;
-			
-			out.printf("%-"+width+"."+width+"s",
-					file.getFormatedName(this.quoting)+file.getFileIndicator(this.fileIndicator));
+			plan.paddedName(file, row, fixedWidth == 0 ? noLimitWidth[counter%5] : fixedWidth);
 		
-			if(counter%5==4) out.printf("%n");
+			if(counter%5==4)
+			{
+				row.append(OutputBuffer.NEWLINE);
+				buffer.endRow();
+			}
 			
 			counter++;
 		}
-		out.printf("%n");
+		buffer.row().append(OutputBuffer.NEWLINE);
+		buffer.flush();
 	}
 	
 	public void commaView(PrintWriter out) throws IOException
 	{
+		LsRenderPlan plan = this.getRenderPlan();
+		OutputBuffer buffer = new OutputBuffer(out);
 		int counter=1;
-		int blockSize;
-		for(FileInfo file: this.filesList)
+		try(Entries entries = new Entries())
 		{
-			if(this.allocatedSize)
+			for(FileInfo file: entries)
 			{
-				//Minimum scale for allocatedSize is KB
-				if(this.sizeScale.equals("B"))
-				{
-					blockSize=file.getFormatedSize("K", this.sizePower).length();
-					out.printf("%"+blockSize+"."+blockSize+"s ",file.getFormatedSize("K", this.sizePower));
-				}
-				else
-				{
-					blockSize=file.getFormatedSize(this.sizeScale, this.sizePower).length();
-					out.printf("%"+blockSize+"."+blockSize+"s ",file.getFormatedSize(this.sizeScale, this.sizePower));
-				}
+				StringBuilder row = buffer.row();
+				//Separator is printed before the entry, the size of a streamed listing isn't known
+				if(counter>1) row.append(", ");
+				
+				if(plan.hasAllocatedSize()) plan.allocatedSizeUnpadded(file, row);
+				plan.name(file, row);
+				buffer.endRow();
+				
+				counter++;
 			}
-			
-			out.printf("%s",file.getFormatedName(this.quoting));
-			out.printf("%s",file.getFileIndicator(this.fileIndicator));
-			
-			if(counter<this.filesList.size()) out.printf(", ");
-			
-			counter++;
 		}
-		out.printf("%n");
+		buffer.row().append(OutputBuffer.NEWLINE);
+		buffer.flush();
 	}
 	/******************************************************************************************************************************/
 	
 	
 	/******************************************************UTIL-FUNCTIONS**********************************************************/
+	/*
+	 * Display options of this command compiled into a render plan (quoting, indicator, long view columns)
+	 */
+	public LsRenderPlan compileRenderPlan()
+	{
+		return new LsRenderPlan(this.noOwner, this.noGroup, this.noAuthor, this.numericIds, this.isoTime, this.showAccessTime, this.showChangeTime,
+				this.fileIndicator, this.sizeScale, this.sizePower, this.quoting, this.allocatedSize);
+	}
+	
+	public LsRenderPlan getRenderPlan()
+	{
+		if(this.renderPlan==null) this.renderPlan = this.compileRenderPlan();
+		return this.renderPlan;
+	}
+	
+	//Plan compiled by another listing with the same options
+	public void setRenderPlan(LsRenderPlan renderPlan)
+	{
+		this.renderPlan = renderPlan;
+	}
+	
+	public ArrayList<FileInfo> getFilesList() throws IOException
+	{
+		this.materialize();
+		return this.filesList;
+	}
+	
+	/*
+	 * Streamed (or watched) entry: name filters first (no stat for rejected entries), then the demanded attributes, null if filtered out
+	 */
+	FileInfo accept(Path path) throws IOException
+	{
+		if(!this.nameFilter.accept(path)) return null;
+		FileInfo file = new FileInfo(path, false, NAME_ONLY);
+		for(Predicate<FileInfo> filter: this.filters)
+			if(!filter.test(file)) return null;
+		
+		file.load(this.demand);
+		if(this.dereference) file = this.linkResolver.resolve(file);
+		return file;
+	}
+	
+	/*
+	 * --count: number of entries of the listing. Without attribute filters, only the names are read (no FileInfo, no stat)
+	 */
+	public long count() throws IOException
+	{
+		long count;
+		if(!this.filters.isEmpty() || this.operands || (!this.pendingRead && !this.streaming)) count = this.getFilesList().size();
+		else
+		{
+			//The implied entries left by the filters, and the accepted names
+			count = this.filesList.size();
+			try(DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(this.directory), this.nameFilter))
+			{
+				for(Iterator<Path> paths = stream.iterator(); paths.hasNext(); paths.next()) count++;
+			} catch (IOException e) { this.readError = e; } //An unreadable directory has no content, the error is reported
+		}
+		return this.maxEntries > 0 ? Math.min(count, this.maxEntries) : count;
+	}
+	
+	/*
+	 * Read the directory with every filter known: names first, then the demanded attributes of the accepted entries
+	 * (in parallel for big directories, same order as the listing), then the filters on attributes
+	 */
+	private void read() throws IOException
+	{
+		if(!this.pendingRead) return;
+		this.pendingRead = false;
+		
+		List<FileInfo> snapshot = this.cache != null && !this.operands ? this.cache.list(new File(this.directory)) : null;
+		if(this.operands) {} //Nothing to read, the entries are the operands
+		else if(snapshot != null)
+		{
+			for(FileInfo file: snapshot)
+				if(this.nameFilter.test(file.getName())) this.filesList.add(file);
+		}
+		//No cache, or a directory the cache couldn't list: read here to know why
+		else
+		{
+			try(DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(this.directory), this.nameFilter))
+			{
+				for(Path path: stream) this.filesList.add(new FileInfo(path, false, NAME_ONLY));
+			} catch (IOException e) { this.readError = e; } //An unreadable directory has no content, the error is reported
+		}
+		
+		AttributeLoader.getDefault().load(this.filesList, this.demand);
+		
+		for(Predicate<FileInfo> filter: this.filters)
+		{
+			Iterator<FileInfo> iter = this.filesList.iterator();
+			while(iter.hasNext())
+			{
+				if(!filter.test(iter.next())) iter.remove();
+			}
+		}
+	}
+	
+	/*
+	 * Order of the listing for entries added later [--watch], null when the listing isn't sorted
+	 */
+	Comparator<FileInfo> ordering()
+	{
+		return this.sorter.isActive() ? this.sorter.comparator() : null;
+	}
+	
+	String getDirectory()
+	{
+		return this.directory;
+	}
+	
+	/*
+	 * Why the directory couldn't be read by the last view (null if it was read)
+	 */
+	public IOException getReadError()
+	{
+		return this.readError;
+	}
+	
+	/*
+	 * Views that need the whole listing (column widths) read the stream into filesList, the pending sort is applied
+	 */
+	private void materialize() throws IOException
+	{
+		this.read();
+		if(this.streaming)
+		{
+			ArrayList<FileInfo> newFilesList = new ArrayList<FileInfo>();
+			try(Entries entries = new Entries(true))
+			{
+				//Top-K: only the retained entries are kept while reading
+				if(this.maxEntries > 0) newFilesList = this.sorter.top(entries, this.maxEntries);
+				else for(FileInfo file: entries) newFilesList.add(file);
+			}
+			this.filesList = newFilesList;
+			this.streaming = false;
+			this.sorted = this.maxEntries > 0 || this.sorted;
+		}
+		
+		if(!this.sorted)
+		{
+			if(this.maxEntries > 0 && this.maxEntries < this.filesList.size()) this.filesList = this.sorter.top(this.filesList, this.maxEntries);
+			else if(this.sorter.isActive()) this.filesList = this.sorter.sort(this.filesList);
+			this.sorted = true;
+		}
+	}
+	
+	/*
+	 * Entries to display: filesList, or . and .. followed by the directory stream in streaming mode
+	 */
+	private class Entries implements Iterable<FileInfo>, Closeable
+	{
+		private DirectoryStream<Path> stream;
+		
+		Entries() throws IOException
+		{
+			this(maxEntries == 0);
+		}
+		
+		/*
+		 * scan: read the directory stream (in streaming mode), otherwise the listing is materialized first
+		 */
+		Entries(boolean scan) throws IOException
+		{
+			if(streaming && scan)
+			{
+				try {
+					this.stream = Files.newDirectoryStream(Paths.get(directory), nameFilter);
+				} catch (IOException e) { readError = e; } //An unreadable directory has no content, the error is reported
+			}
+			else materialize();
+		}
+		
+		@Override
+		public Iterator<FileInfo> iterator()
+		{
+			if(this.stream==null) return filesList.iterator();
+			
+			final Iterator<FileInfo> implied = filesList.iterator();
+			final Iterator<Path> paths = this.stream.iterator();
+			return new Iterator<FileInfo>()
+			{
+				private FileInfo next;
+				
+				@Override
+				public boolean hasNext()
+				{
+					while(this.next==null)
+					{
+						if(implied.hasNext()) this.next = implied.next();
+						else if(paths.hasNext())
+						{
+							try {
+								this.next = accept(paths.next());
+							} catch (IOException e) { throw new UncheckedIOException(e); }
+						}
+						else return false;
+					}
+					return true;
+				}
+				
+				@Override
+				public FileInfo next()
+				{
+					if(!this.hasNext()) throw new NoSuchElementException();
+					FileInfo file = this.next;
+					this.next = null;
+					return file;
+				}
+			};
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			if(this.stream!=null) this.stream.close();
+		}
+	}
+	
 	public int[] verticalColumnWidth()
 	{
 		int filePerCol=(this.filesList.size()/5) + 1;
@@ -522,43 +887,7 @@ public class LsCommand
 
 	public void detailedLine(FileInfo file, PrintWriter out) throws IOException, ParseException
 	{
-		if(this.allocatedSize)
-		{
-			//Minimum scale for allocatedSize is KB
-			if(this.sizeScale.equals("B"))
-				out.printf("%15.15s ",file.getFormatedSize("K", this.sizePower));
-			else
-				out.printf("%15.15s ",file.getFormatedSize(this.sizeScale, this.sizePower));
-		}
-		
-		out.printf("%-12.12s ",file.getFilePermissions());
-		
-		if(!this.noOwner)
-			out.printf("%-20.20s ",file.getOwner());
-		
-		if(!this.noGroup)
-			out.printf("%-8.8s ",file.getGroup());
-		
-		if(!this.noAuthor)
-			out.printf("%-20.20s ",file.getOwner());
-		out.printf("%15.15s ",file.getFormatedSize(this.sizeScale, this.sizePower));
-		
-		if(this.showAccessTime)
-			out.printf("%14.14s ",file.getLastAccessed());
-		else
-		{
-			if(!this.isoTime)
-				out.printf("%14.14s ",file.getLastModified());
-			else
-				out.printf("%20.20s ",file.getLastModifiedISO());
-		}
-		
-		out.printf("%s",file.getFormatedName(this.quoting));
-		out.printf("%s",file.getFileIndicator(this.fileIndicator));
-		if(file.isSymLink())
-			out.printf(" -> %s",file.getSymLink());
-		
-		out.printf("%n");
+		out.print(this.getRenderPlan().detailedLine(file, new StringBuilder(256)));
 	}
 	/******************************************************************************************************************************/
 }
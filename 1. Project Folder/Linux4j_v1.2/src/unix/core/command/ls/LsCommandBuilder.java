@@ -1,165 +1,396 @@
 package unix.core.command.ls;
 
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
 import java.util.ArrayList;
-import java.util.Map;
+import java.util.EnumSet;
+import java.util.Set;
 
 import unix.core.base.CommandParser;
 import unix.core.base.SpecificCommandBuilder;
+import unix.util.FileAttribute;
+import unix.util.LinkResolver;
+import unix.util.ListingCache;
 
 public class LsCommandBuilder implements SpecificCommandBuilder
 {
+	//Render plan of the running command: every directory (and every recursion worker) has the same display options
+	private LsRenderPlan renderPlan;
+	
+	//Link targets of the running command [-L]: links to the same file, in any listed directory, read it once
+	private LinkResolver linkResolver;
+	
+	//Directory snapshots of the Shell session (null: directories are always read)
+	private final ListingCache cache;
+	
+	//The console is a terminal [--watch redraws the changed rows instead of printing them]
+	private final boolean terminal;
+	
+	//Error stream of the Shell [diagnostics of the record formats]
+	private final PrintWriter errors;
+	
+	public LsCommandBuilder()
+	{
+		this(null);
+	}
+	
+	public LsCommandBuilder(ListingCache cache)
+	{
+		this(cache, System.console()!=null);
+	}
+	
+	public LsCommandBuilder(ListingCache cache, boolean terminal)
+	{
+		this(cache, terminal, new PrintWriter(System.err, true));
+	}
+	
+	public LsCommandBuilder(ListingCache cache, boolean terminal, PrintWriter errors)
+	{
+		super();
+		this.cache = cache;
+		this.terminal = terminal;
+		this.errors = errors;
+	}
+	
 	public void execute(CommandParser command, PrintWriter out) throws Exception
 	{
 		LsArguments lsArg = (LsArguments) command.getArguments();
 
-		//GET Argument Directories/options
+		//GET Argument Directories/options (resolved once, read-only: every directory and every recursion worker shares them)
 		ArrayList<String> directories = lsArg.getDirectories();
-		Map<String, String> options = lsArg.getOptions();
+		LsOptions options = lsArg.getOptions();
 		
 		// ls --help
-		if (options.get("help").equals("true"))
+		if (options.has(LsOption.HELP))
 		{
-			this.printHelp();
+			this.printHelp(out);
 			return;
 		}
 		
+		//Attributes needed by the chosen options, the others are never read
+		Set<FileAttribute> demand = this.attributeDemand(lsArg, options);
+		
+		//Unsorted listings are printed while the directory is read (constant memory, first line without delay)
+		boolean streaming = this.isStreamable(lsArg, options);
+		
+		//Compiled by the first listing, reused by the others
+		this.setRenderPlan(null);
+		this.linkResolver = null;
+		
+		// --format=csv		the header line, once for the whole command (before any record)
+		LsRecordFormat recordFormat = this.recordFormat(options);
+		if (recordFormat != null) out.print(recordFormat.header(new StringBuilder()));
+		
+		// Globs without any match
+		for (String glob: lsArg.getUnmatched()) this.diagnose("ls: cannot access '" + glob + "': No such file or directory", options, out);
+		
+		// Operands that aren't directories [ls a.txt logs/*.gz]: listed together, before the directories
+		if (!lsArg.getFiles().isEmpty())
+		{
+			if (recordFormat == null) out.println();
+			LsCommand ls = this.configure(new LsCommand(lsArg.getCurrentDirectory(), demand, false, null).files(lsArg.getFiles()), lsArg, options, demand);
+			this.display(ls, options, out);
+		}
+		
 		//EXECUTE LS-Command on each one of the directories
 		for (String directory: directories)
 		{
-			out.println(); //Separator-Line between each LS command
-			
-			LsCommand ls = new LsCommand(directory);
+			// ls *.log		the pattern filters the listing: read before anything is printed (once, the listing is the one shown),
+			//				a pattern matching nothing is reported instead, like the shell does
+			LsCommand filtered = null;
+			if (lsArg.getWildcards() != null)
+			{
+				filtered = this.prepare(directory, lsArg, options, demand, false);
+				if (filtered.getFilesList().isEmpty())
+				{
+					this.diagnose("ls: cannot access '" + lsArg.getWildcards() + "': No such file or directory", options, out);
+					continue;
+				}
+			}
 			
-			/***************************************SEARCH-WILDCARD*****************************************/
-			if (!(lsArg.getWildcards()==null)) ls = ls.searchPattern(lsArg.getWildcards());
-			/***********************************************************************************************/
+			if (recordFormat == null) out.println(); //Separator-Line between each LS command (records need none)
 			
-			/********************************************FILTERS********************************************/
-			// -f                         do not sort, enable -aU, disable -ls --color
-			if(options.get("f").equals("true"))
+			// --watch[=SECONDS]		list the directory, then follow its changes
+			if(options.has(LsOption.WATCH))
 			{
-				options=lsArg.put("a", "true");
-				options=lsArg.put("U", "true");
-				options=lsArg.put("l", "false");
-				options=lsArg.put("s", "false");
-				options=lsArg.put("color", "false");
+				LsCommand ls = this.prepare(directory, lsArg, options, demand, false);
+				boolean terminal = lsArg.getOutFile()==null && this.terminal;
+				new LsWatch(ls, this.renderPlanOf(ls), this.isLongView(options), terminal).watch(out, options.getWatchSeconds());
+				continue;
 			}
-			// -d, --directory            list directories themselves, not their contents
-			if((options.get("d").equals("true") || options.get("directory").equals("true") )
-					&& !lsArg.getMarkDirectories()) ls = ls.directory();
-			// -B, --ignore-backups       do not list implied entries ending with ~
-			if(options.get("B").equals("true") || options.get("ignore-backups").equals("true")) ls = ls.ignoreBackups();
-			// -A, --almost-all           do not list implied . and ..
-			if((options.get("A").equals("true") || options.get("almost-all").equals("true"))
-					&& options.get("a").equals("false")
-					&& options.get("all").equals("false")) ls = ls.almostAll();
-			// default listing			ignore entries starting with .
-			if(options.get("A").equals("false") && options.get("almost-all").equals("false")
-					&& options.get("a").equals("false") && options.get("all").equals("false")) ls = ls.defaultListing();
-			/***********************************************************************************************/
 			
-			/********************************************SORTERS********************************************/
-			// -U, sort=none                       do not sort; list entries in directory order
-			if(!options.get("sort").equals("false") || options.get("U").equals("true"))
+			// -R, --recursive / ls *	list subdirectories (ls * lists the content of the directories instead of the directories)
+			if(this.isRecursive(lsArg, options))
 			{
-				 options=lsArg.put("S", "false");
-				 options=lsArg.put("t", "false");
-				 options=lsArg.put("v", "false");
-				 options=lsArg.put("X", "false");
+				boolean subdirOnly = !options.has(LsOption.RECURSIVE);
+				new LsRecursion(this, lsArg, options, demand, subdirOnly ? 1 : Integer.MAX_VALUE, subdirOnly).list(directory, out);
+				continue;
 			}
-			// -c, --time=ctime    		with -l: show ctime and sort by name; otherwise: sort by ctime, newest first
-			if((options.get("c").equals("true") || options.get("time").equals("ctime"))
-					&& options.get("l").equals("false")) 
-							options=lsArg.put("t", "true");
-			// -S, sort=size            sort by file size, largest first
-			if(options.get("S").equals("true") || options.get("sort").equals("size")) ls = ls.sortBySize();
-			// -X, sort=extension       sort alphabetically by entry extension
-			if(options.get("X").equals("true") || options.get("sort").equals("extension")) ls = ls.sortByExtension();
-			// -t, sort=time            sort by modification time, newest first
-			if(options.get("t").equals("true") || options.get("sort").equals("time")) ls = ls.sortByModificationTime();
-			
-			// -u with -l: 				show access-time and sort by name;
-			if(options.get("u").equals("true") || options.get("time").equals("atime")) ls = ls.showAccessTime();
-			// -u, --time=atime with -lt, without -l			sort by access-time;
-			// 
-			if((options.get("u").equals("true") || options.get("time").equals("atime")) 
-					&& (options.get("t").equals("true") || options.get("l").equals("false")) ) 
-							ls = ls.sortByAccessTime();
-			
-			// -r, --reverse              reverse order while sorting
-			if(options.get("r").equals("true")) ls = ls.reverseSort();
-			// --group-directories-first	group directories before files
-			if(options.get("group-directories-first").equals("true")) ls = ls.directoriesFirst();
-			/***********************************************************************************************/
-			
-			/***************************************FORMAT to DISPLAY***************************************/
-			// --time-style=STYLE		with -l, show times using style STYLE: full-iso, long-iso, iso, locale, 
-			if(options.get("time-style").equals("full-iso")
-					|| options.get("time-style").equals("long-iso")
-					|| options.get("time-style").equals("iso")) options=lsArg.put("full-time", "true");
-			// --full-time            like -l --time-style
-			if(options.get("full-time").equals("true")) ls = ls.fullTime();
-			// -d */				Directories with an '/'
-			if(options.get("d").equals("true") && lsArg.getMarkDirectories()) ls = ls.fileIndicator("slash");
-			// -p, --indicator-style=slash		append / indicator to directories
-			if(options.get("p").equals("true") || options.get("indicator-style").equals("slash")) ls = ls.fileIndicator("slash");
-			// --file-type            likewise, except do not append '*'
-			if(options.get("file-type").equals("true")) ls = ls.fileIndicator("file-type");
-			// --block-size=SIZE      scale sizes by SIZE before printing them
-			if(!options.get("block-size").equals("false")) ls = ls.sizeFormat(options.get("block-size"), 1024);
-			// -h, --human-readable       with -l and/or -s, print human readable sizes
-			if(options.get("h").equals("true") || options.get("human-readable").equals("true")) ls = ls.sizeFormat(null, 0);
-			// --si                   likewise, but use powers of 1000 not 1024
-			if(options.get("si").equals("true")) ls = ls.sizeFormat(null, 1000);
-			// -F, --classify, --indicator-style=classify           append indicator (one of */=>@|) to entries  
-			if(options.get("F").equals("true") || options.get("classify").equals("true") || options.get("indicator-style").equals("classify")) 
-				ls = ls.fileIndicator("classify");
-			// -L, --dereference          show target file information for SymLinks
-			if(options.get("L").equals("true") || options.get("dereference").equals("true")) ls = ls.dereference();
-			// -Q, --quote-name           enclose entry names in double quotes
-			if(options.get("Q").equals("true") || options.get("quote-name").equals("true")) ls = ls.quotingStyle("c");
-			// --quoting-style=WORD   	use quoting style WORD for entry names
-			if(!options.get("quoting-style").equals("false")) ls = ls.quotingStyle(options.get("quoting-style"));
-			// -N, --literal              print entry names without quoting
-			if(options.get("N").equals("true") || options.get("literal").equals("true")) ls = ls.quotingStyle("literal");
-			/***********************************************************************************************/
-			
-			
-			/***************************************ELEMENTS to DISPLAY************************************/
-			// -g                         	like -l, but do not list owner
-			if(options.get("g").equals("true")) ls = ls.noOwner();
-			// -o, -G                         like -l, but do not list group information
-			if(options.get("G").equals("true") || options.get("o").equals("true")) ls = ls.noGroup();
-			// --author               with -l, print the author of each file
-			if(options.get("author").equals("true")) ls = ls.showAuthor();
-			// -s, --size                 print the allocated size of each file, in blocks
-			if(options.get("s").equals("true") || options.get("size").equals("true")) ls = ls.allocatedSize();
-			// ls *						LIST all subdir
-			if(lsArg.getListAllSubdir()) ls = ls.listSubDir();
-			/***********************************************************************************************/
-			
-			/********************************************DISPLAY********************************************/
-			// -l, --format=long, verbose                    use a long listing format
-			if(options.get("l").equals("true") || options.get("format").equals("long") || options.get("format").equals("verbose")) 
-				ls.longView(command, out);
-			// -1, --format=single-column                    list one file per line.  Avoid '\n' with -q or -b
-			else if(options.get("1").equals("true") || options.get("format").equals("single-column")) ls.singleColumnView(out);
-			// -x, --format=across, horizontal               list entries by lines instead of by columns
-			else if(options.get("x").equals("true") || options.get("format").equals("across") || options.get("format").equals("horizontal")) 
-				ls.horizontalView("0", out);
-			// -m, --format=commas                        	fill width with a comma separated list of entries
-			else if(options.get("m").equals("true") || options.get("format").equals("commas")) ls.commaView(out);
-			// -C, --format=vertical                        list entries by columns
-			else ls.verticalView("0", out);
-			/***********************************************************************************************/
 			
+			LsCommand ls = filtered != null ? filtered : this.prepare(directory, lsArg, options, demand, streaming);
+			this.display(ls, options, out);
 		}
 	}
+	
+	/*
+	 * Build the LS-Command of one directory: filters, sorters and format (options are only read, never changed)
+	 */
+	public LsCommand prepare(String directory, LsArguments lsArg, LsOptions options, Set<FileAttribute> demand, boolean streaming) throws Exception
+	{
+		return this.configure(new LsCommand(directory, demand, streaming, this.cache), lsArg, options, demand);
+	}
+	
+	private LsCommand configure(LsCommand ls, LsArguments lsArg, LsOptions options, Set<FileAttribute> demand) throws Exception
+	{
+		/***************************************SEARCH-WILDCARD*****************************************/
+		if (!(lsArg.getWildcards()==null)) ls = ls.searchPattern(lsArg.getWildcards());
+		/***********************************************************************************************/
+		
+		/********************************************FILTERS********************************************/
+		// -d, --directory            list directories themselves, not their contents
+		if(options.has(LsOption.DIRECTORY)
+				&& !lsArg.getMarkDirectories()) ls = ls.directory();
+		// -B, --ignore-backups       do not list implied entries ending with ~
+		if(options.has(LsOption.IGNORE_BACKUPS)) ls = ls.ignoreBackups();
+		// -A, --almost-all           do not list implied . and ..
+		if(options.has(LsOption.ALMOST_ALL)
+				&& !options.has(LsOption.ALL)) ls = ls.almostAll();
+		// default listing			ignore entries starting with .
+		if(!options.has(LsOption.ALMOST_ALL)
+				&& !options.has(LsOption.ALL)) ls = ls.defaultListing();
+		/***********************************************************************************************/
+		
+		/********************************************SORTERS********************************************/
+		// default                  sort alphabetically if none of -cftuvSUX nor --sort is specified
+		if(!options.has(LsOption.UNSORTED) && !options.is(LsOption.SORT, "none")) ls = ls.sortByName();
+		// -v, sort=version         natural sort of (version) numbers within text
+		if(options.has(LsOption.SORT_VERSION) || options.is(LsOption.SORT, "version")) ls = ls.sortByVersion();
+		// -S, sort=size            sort by file size, largest first
+		if(options.has(LsOption.SORT_SIZE) || options.is(LsOption.SORT, "size")) ls = ls.sortBySize();
+		// -X, sort=extension       sort alphabetically by entry extension
+		if(options.has(LsOption.SORT_EXTENSION) || options.is(LsOption.SORT, "extension")) ls = ls.sortByExtension();
+		// -t, sort=time            sort by modification time, newest first
+		if(options.has(LsOption.SORT_TIME) || options.is(LsOption.SORT, "time")) ls = ls.sortByModificationTime();
+		
+		// -u with -l: 				show access-time and sort by name;
+		if(options.has(LsOption.ATIME) || options.is(LsOption.TIME, "atime")) ls = ls.showAccessTime();
+		// -u, --time=atime with -lt, without -l			sort by access-time;
+		// 
+		if((options.has(LsOption.ATIME) || options.is(LsOption.TIME, "atime")) 
+				&& (options.has(LsOption.SORT_TIME) || !options.has(LsOption.LONG)) ) 
+						ls = ls.sortByAccessTime();
+		
+		// -c, --time=ctime with -l: 		show ctime and sort by name;
+		if(options.has(LsOption.CTIME) || options.is(LsOption.TIME, "ctime", "status")) 
+			ls = ls.showChangeTime();
+		// -c, --time=ctime with -lt, without -l			sort by ctime, newest first;
+		if((options.has(LsOption.CTIME) || options.is(LsOption.TIME, "ctime", "status")) 
+				&& (options.has(LsOption.SORT_TIME) || !options.has(LsOption.LONG)) ) 
+						ls = ls.sortByChangeTime();
+		
+		// -r, --reverse              reverse order while sorting
+		if(options.has(LsOption.REVERSE)) ls = ls.reverseSort();
+		// --group-directories-first	group directories before files
+		if(options.has(LsOption.GROUP_DIRECTORIES_FIRST)) ls = ls.directoriesFirst();
+		// --max-entries=N				list only the first N entries (sorted)
+		if(options.has(LsOption.MAX_ENTRIES)) ls = ls.maxEntries(options.getMaxEntries());
+		/***********************************************************************************************/
+		
+		/***************************************FORMAT to DISPLAY***************************************/
+		// --full-time            like -l --time-style
+		if(options.has(LsOption.FULL_TIME)) ls = ls.fullTime();
+		// -d */				Directories with an '/'
+		if(options.has(LsOption.DIRECTORY) && lsArg.getMarkDirectories()) ls = ls.fileIndicator("slash");
+		// -p, --indicator-style=slash		append / indicator to directories
+		if(options.has(LsOption.SLASH) || options.is(LsOption.INDICATOR_STYLE, "slash")) ls = ls.fileIndicator("slash");
+		// --file-type            likewise, except do not append '*'
+		if(options.has(LsOption.FILE_TYPE)) ls = ls.fileIndicator("file-type");
+		// --block-size=SIZE      scale sizes by SIZE before printing them
+		if(options.has(LsOption.BLOCK_SIZE)) ls = ls.sizeFormat(options.value(LsOption.BLOCK_SIZE), 1024);
+		// -h, --human-readable       with -l and/or -s, print human readable sizes
+		if(options.has(LsOption.HUMAN_READABLE)) ls = ls.sizeFormat(null, 0);
+		// --si                   likewise, but use powers of 1000 not 1024
+		if(options.has(LsOption.SI)) ls = ls.sizeFormat(null, 1000);
+		// -F, --classify, --indicator-style=classify           append indicator (one of */=>@|) to entries  
+		if(options.has(LsOption.CLASSIFY) || options.is(LsOption.INDICATOR_STYLE, "classify")) 
+			ls = ls.fileIndicator("classify");
+		// -L, --dereference          show target file information for SymLinks
+		if(options.has(LsOption.DEREFERENCE)) ls = ls.dereference(this.linkResolverOf(demand));
+		// -Q, --quote-name           enclose entry names in double quotes
+		if(options.has(LsOption.QUOTE_NAME)) ls = ls.quotingStyle("c");
+		// --quoting-style=WORD   	use quoting style WORD for entry names
+		if(options.has(LsOption.QUOTING_STYLE)) ls = ls.quotingStyle(options.value(LsOption.QUOTING_STYLE));
+		// -N, --literal              print entry names without quoting
+		if(options.has(LsOption.LITERAL)) ls = ls.quotingStyle("literal");
+		/***********************************************************************************************/
+		
+		
+		/***************************************ELEMENTS to DISPLAY************************************/
+		// -g                         	like -l, but do not list owner
+		if(options.has(LsOption.NO_OWNER)) ls = ls.noOwner();
+		// -o, -G                         like -l, but do not list group information
+		if(options.has(LsOption.NO_GROUP) || options.has(LsOption.NO_GROUP_LONG)) ls = ls.noGroup();
+		// --author               with -l, print the author of each file
+		if(options.has(LsOption.AUTHOR)) ls = ls.showAuthor();
+		// -n, --numeric-uid-gid      list numeric user and group IDs (no name lookup)
+		if(options.has(LsOption.NUMERIC_IDS)) ls = ls.numericIds();
+		// -s, --size                 print the allocated size of each file, in blocks
+		if(options.has(LsOption.SIZE)) ls = ls.allocatedSize();
+		/***********************************************************************************************/
+		
+		
+		return ls;
+	}
+	
+	/*
+	 * Print the LS-Command with the chosen view
+	 */
+	public void display(LsCommand ls, LsOptions options, PrintWriter out) throws Exception
+	{
+		ls.setRenderPlan(this.renderPlanOf(ls));
+		
+		/********************************************DISPLAY********************************************/
+		// --count                                       print the number of entries only (names are read, nothing is stat-ed)
+		if(options.has(LsOption.COUNT)) out.println(ls.count());
+		// --format=jsonl|csv|nul                       one record per entry, every attribute at full precision
+		else if(this.recordFormat(options) != null) ls.recordView(this.recordFormat(options), out);
+		// -l, --format=long, verbose                    use a long listing format
+		else if(this.isLongView(options)) ls.longView(out);
+		// -1, --format=single-column                    list one file per line.  Avoid '\n' with -q or -b
+		else if(options.has(LsOption.ONE_PER_LINE) || options.is(LsOption.FORMAT, "single-column")) ls.singleColumnView(out);
+		// -x, --format=across, horizontal               list entries by lines instead of by columns
+		else if(options.has(LsOption.ACROSS) || options.is(LsOption.FORMAT, "across", "horizontal")) 
+			ls.horizontalView("0", out);
+		// -m, --format=commas                        	fill width with a comma separated list of entries
+		else if(options.has(LsOption.COMMAS) || options.is(LsOption.FORMAT, "commas")) ls.commaView(out);
+		// -C, --format=vertical                        list entries by columns
+		else ls.verticalView("0", out);
+		/***********************************************************************************************/
+		
+		// Unreadable directory [chmod 000]: listed empty, and reported
+		if(ls.getReadError() != null)
+			this.diagnose("ls: cannot open directory '" + ls.getDirectory() + "': " + reason(ls.getReadError()), options, out);
+	}
+	
+	/*
+	 * Error message of the command: a line of the listing with the text views,
+	 * the error stream of the Shell with --format=jsonl|csv|nul (their output is records only, for a parser)
+	 */
+	void diagnose(String message, LsOptions options, PrintWriter out)
+	{
+		if(this.recordFormat(options) == null) out.println(message);
+		else this.errors.println(message);
+	}
+	
+	private static String reason(IOException e)
+	{
+		if(e instanceof AccessDeniedException) return "Permission denied";
+		if(e instanceof NoSuchFileException) return "No such file or directory";
+		if(e instanceof NotDirectoryException) return "Not a directory";
+		return e.getMessage();
+	}
 
-	public void printHelp()
+	synchronized LsRenderPlan renderPlanOf(LsCommand ls)
+	{
+		if(this.renderPlan==null) this.renderPlan = ls.compileRenderPlan();
+		return this.renderPlan;
+	}
+	
+	private synchronized LinkResolver linkResolverOf(Set<FileAttribute> demand)
+	{
+		if(this.linkResolver==null) this.linkResolver = new LinkResolver(demand);
+		return this.linkResolver;
+	}
+	
+	private synchronized void setRenderPlan(LsRenderPlan renderPlan)
+	{
+		this.renderPlan = renderPlan;
+	}
+	
+	/*
+	 * Work out which attributes the filters, sorters and view will read:
+	 * names come for free, STAT is one bulk read per entry, OWNER adds the owner/group name lookups
+	 */
+	public Set<FileAttribute> attributeDemand(LsArguments lsArg, LsOptions options)
+	{
+		Set<FileAttribute> demand = EnumSet.noneOf(FileAttribute.class);
+		
+		boolean longView = this.isLongView(options);
+		
+		if(longView
+				// -s, --size, --block-size, -h, --si
+				|| options.has(LsOption.SIZE)
+				// -t, -S, -X, -u, -c, --sort, --time, --group-directories-first
+				|| options.has(LsOption.SORT_TIME) || options.has(LsOption.SORT_SIZE) || options.has(LsOption.SORT_EXTENSION)
+				|| options.has(LsOption.ATIME) || options.has(LsOption.CTIME)
+				|| options.is(LsOption.SORT, "size", "time", "extension")
+				|| options.has(LsOption.TIME)
+				|| options.has(LsOption.GROUP_DIRECTORIES_FIRST)
+				// -F, -p, --file-type, --indicator-style, -d */
+				|| options.has(LsOption.CLASSIFY) || options.has(LsOption.SLASH)
+				|| options.has(LsOption.FILE_TYPE) || options.has(LsOption.INDICATOR_STYLE)
+				|| lsArg.getMarkDirectories()
+				// -L, -R, ls *
+				|| options.has(LsOption.DEREFERENCE)
+				// --format=jsonl|csv|nul
+				|| this.recordFormat(options) != null
+				|| this.isRecursive(lsArg, options))
+			demand.add(FileAttribute.STAT);
+		
+		// -l prints owner and group unless both -g and -G/-o are given, --author prints the owner too
+		if(longView && (!options.has(LsOption.NO_OWNER) 
+				|| (!options.has(LsOption.NO_GROUP) && !options.has(LsOption.NO_GROUP_LONG))
+				|| options.has(LsOption.AUTHOR))
+				// -n shows the ids of STAT
+				&& !options.has(LsOption.NUMERIC_IDS))
+			demand.add(FileAttribute.OWNER);
+		
+		return demand;
+	}
+
+	/*
+	 * Streaming needs no sort [-U, -f, --sort=none], no reordering [-r, --group-directories-first] 
+	 * and a view that prints entry by entry [-l, -1, -m], or a top-K listing [--max-entries]
+	 */
+	public boolean isStreamable(LsArguments lsArg, LsOptions options)
+	{
+		boolean unsorted = options.has(LsOption.UNSORTED) || options.is(LsOption.SORT, "none");
+		boolean reordered = options.has(LsOption.REVERSE) || options.has(LsOption.GROUP_DIRECTORIES_FIRST);
+		boolean lineView = this.isLongView(options)
+				|| options.has(LsOption.ONE_PER_LINE) || options.is(LsOption.FORMAT, "single-column")
+				|| options.has(LsOption.COMMAS) || options.is(LsOption.FORMAT, "commas")
+				|| this.recordFormat(options) != null;
+		
+		// --max-entries=N: only the first N entries are kept while reading, in any order and any view
+		boolean topEntries = options.has(LsOption.MAX_ENTRIES);
+		
+		return ((unsorted && !reordered && lineView) || topEntries) && !this.isRecursive(lsArg, options);
+	}
+	
+	// -l, --format=long, verbose
+	public boolean isLongView(LsOptions options)
+	{
+		return options.has(LsOption.LONG) || options.is(LsOption.FORMAT, "long", "verbose");
+	}
+	
+	// --format=jsonl|csv|nul, null for the text views
+	public LsRecordFormat recordFormat(LsOptions options)
+	{
+		return LsRecordFormat.of(options.value(LsOption.FORMAT));
+	}
+	
+	// -R, --recursive, ls *
+	public boolean isRecursive(LsArguments lsArg, LsOptions options)
+	{
+		return options.has(LsOption.RECURSIVE) || lsArg.getListAllSubdir();
+	}
+	
+	public void printHelp(PrintWriter out)
 	{
-		System.out.println("Usage: ls [OPTION]... [FILE]...\r\n" + 
+		out.println("Usage: ls [OPTION]... [FILE]...\r\n" + 
 				"List information about the FILEs (the current directory by default).\r\n" + 
 				"Sort entries alphabetically if none of -cftuvSUX nor --sort is specified.\r\n" + 
 				"\r\n" + 
@@ -176,12 +407,16 @@ public class LsCommandBuilder implements SpecificCommandBuilder
 				"                               with -l: show ctime and sort by name;\r\n" + 
 				"                               otherwise: sort by ctime, newest first\r\n" + 
 				"  -C                         list entries by columns\r\n" + 
+				"      --count                print the number of entries instead of listing them\r\n" + 
 				"  -d, --directory            list directories themselves, not their contents\r\n" + 
-				"  -f                         do not sort, enable -aU, disable -ls --color\r\n" + 
+				"  -f                         do not sort, enable -aU, disable -ls --color;\r\n" + 
+				"                               entries are printed while the directory is read\r\n" + 
 				"   -F, --classify             append indicator (one of */=>@|) to entries  \r\n" + 
 				"      --file-type            likewise, except do not append '*'\r\n" + 
 				"      --format=WORD          across -x, commas -m, horizontal -x, long -l,\r\n" + 
-				"                               single-column -1, verbose -l, vertical -C\r\n" + 
+				"                               single-column -1, verbose -l, vertical -C;\r\n" + 
+				"                               for programs: jsonl, csv, nul (every attribute,\r\n" + 
+				"                               epoch times in ms, NUL after each field with nul)\r\n" + 
 				"      --full-time            like -l --time-style=full-iso\r\n" + 
 				"  -g                         like -l, but do not list owner\r\n" + 
 				"      --group-directories-first\r\n" + 
@@ -200,6 +435,9 @@ public class LsCommandBuilder implements SpecificCommandBuilder
 				"                               link, show information for the file the link\r\n" + 
 				"                               references rather than for the link itself\r\n" + 
 				"  -m                         fill width with a comma separated list of entries\r\n" + 
+				"      --max-entries=N        list only the first N entries of the sorted listing\r\n" + 
+				"                               (e.g., -t --max-entries=20 for the 20 newest)\r\n" + 
+				"  -n, --numeric-uid-gid      like -l, but list numeric user and group IDs\r\n" + 
 				"  -N, --literal              print entry names without quoting\r\n" + 
 				"  -o                         like -l, but do not list group information\r\n" + 
 				"  -p, --indicator-style=slash\r\n" + 
@@ -209,6 +447,7 @@ public class LsCommandBuilder implements SpecificCommandBuilder
 				"                               literal, locale, shell, shell-always,\r\n" + 
 				"                               shell-escape, shell-escape-always, c, escape\r\n" + 
 				"  -r, --reverse              reverse order while sorting\r\n" + 
+				"  -R, --recursive            list subdirectories recursively\r\n" + 
 				"  -s, --size                 print the allocated size of each file, in blocks\r\n" + 
 				"  -S                         sort by file size, largest first\r\n" + 
 				"      --sort=WORD            sort by WORD instead of name: none (-U), size (-S),\r\n" + 
@@ -229,6 +468,11 @@ public class LsCommandBuilder implements SpecificCommandBuilder
 				"                               with -l: show access time and sort by name;\r\n" + 
 				"                               otherwise: sort by access time, newest first\r\n" + 
 				"  -U                         do not sort; list entries in directory order\r\n" + 
+				"                               (streamed with -l, -1 and -m)\r\n" + 
+				"  -v                         natural sort of (version) numbers within text\r\n" + 
+				"      --watch[=SECONDS]      list the directory, then follow its changes (until\r\n" + 
+				"                               interrupted, or for SECONDS): changed rows are\r\n" + 
+				"                               redrawn, or printed as +/~/- lines when redirected\r\n" + 
 				"  -x                         list entries by lines instead of by columns\r\n" + 
 				"  -X                         sort alphabetically by entry extension\r\n" + 
 				"  -1                         list one file per line.  Avoid '\\n' with -q or -b\r\n" + 
@@ -0,0 +1,79 @@
+package unix.core.command.ls;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.function.Predicate;
+
+/*
+ * LsNameFilter
+ * The filters of a listing that only need the entry's name [wildcard, -a/-A, -B, default hidden rule].
+ * They are pushed down into the directory read: rejected names never become a FileInfo and are never stat-ed.
+ */
+public class LsNameFilter implements DirectoryStream.Filter<Path>
+{
+	private final ArrayList<Predicate<String>> predicates;
+
+	public LsNameFilter()
+	{
+		super();
+		this.predicates = new ArrayList<Predicate<String>>();
+	}
+
+	public LsNameFilter add(Predicate<String> predicate)
+	{
+		this.predicates.add(predicate);
+		return this;
+	}
+
+	public boolean isEmpty()
+	{
+		return this.predicates.isEmpty();
+	}
+
+	public boolean test(String name)
+	{
+		for(Predicate<String> predicate: this.predicates)
+			if(!predicate.test(name)) return false;
+		return true;
+	}
+
+	@Override
+	public boolean accept(Path entry)
+	{
+		Path name = entry.getFileName();
+		return this.test(name == null ? "" : name.toString());
+	}
+
+	/******************************************************NAME-RULES**************************************************************/
+	/*
+	 * ls *.txt : the glob is compiled ONCE into a PathMatcher
+	 */
+	public static Predicate<String> glob(String pattern)
+	{
+		final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+		return name -> matcher.matches(Paths.get(name));
+	}
+
+	// default listing: entries starting with . are hidden
+	public static boolean visible(String name)
+	{
+		return name.length() == 0 || name.charAt(0) != '.';
+	}
+
+	// -B: backups end with ~
+	public static boolean notBackup(String name)
+	{
+		return name.length() == 0 || name.charAt(name.length() - 1) != '~';
+	}
+
+	// -A: the implied . and ..
+	public static boolean notImplied(String name)
+	{
+		return !name.equals(".") && !name.equals("..");
+	}
+	/******************************************************************************************************************************/
+}
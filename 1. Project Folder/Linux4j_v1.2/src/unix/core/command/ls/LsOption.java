@@ -0,0 +1,129 @@
+package unix.core.command.ls;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * LsOption
+ * Specification of the LS-Options: every short and long alias maps to ONE constant,
+ * with the kind of argument the option accepts (ls -a == ls --all, ls --sort=time).
+ */
+public enum LsOption
+{
+	ALL('a', "all"),
+	ALMOST_ALL('A', "almost-all"),
+	AUTHOR("author"),
+	BLOCK_SIZE(Argument.REQUIRED, "block-size"),
+	IGNORE_BACKUPS('B', "ignore-backups"),
+	CTIME('c'),
+	COLUMNS('C'),
+	COUNT("count"),
+	DIRECTORY('d', "directory"),
+	UNSORTED_ALL('f'),
+	CLASSIFY('F', "classify"),
+	FILE_TYPE("file-type"),
+	FORMAT(Argument.REQUIRED, "format"),
+	FULL_TIME("full-time"),
+	NO_OWNER('g'),
+	GROUP_DIRECTORIES_FIRST("group-directories-first"),
+	NO_GROUP('G', "no-group"),
+	NO_GROUP_LONG('o'),
+	HUMAN_READABLE('h', "human-readable"),
+	SI("si"),
+	INDICATOR_STYLE(Argument.REQUIRED, "indicator-style"),
+	LONG('l'),
+	DEREFERENCE('L', "dereference"),
+	COMMAS('m'),
+	MAX_ENTRIES(Argument.REQUIRED, "max-entries"),
+	NUMERIC_IDS('n', "numeric-uid-gid"),
+	LITERAL('N', "literal"),
+	SLASH('p'),
+	QUOTE_NAME('Q', "quote-name"),
+	QUOTING_STYLE(Argument.REQUIRED, "quoting-style"),
+	REVERSE('r', "reverse"),
+	RECURSIVE('R', "recursive"),
+	SIZE('s', "size"),
+	SORT_SIZE('S'),
+	SORT(Argument.REQUIRED, "sort"),
+	TIME(Argument.REQUIRED, "time"),
+	TIME_STYLE(Argument.REQUIRED, "time-style"),
+	SORT_TIME('t'),
+	ATIME('u'),
+	UNSORTED('U'),
+	SORT_VERSION('v'),
+	WIDTH('w'),
+	WATCH(Argument.OPTIONAL, "watch"),
+	ACROSS('x'),
+	SORT_EXTENSION('X'),
+	ONE_PER_LINE('1'),
+	HELP("help");
+
+	/*
+	 * NONE: a flag [-l, --all], REQUIRED: --sort=WORD, OPTIONAL: --watch[=SECONDS]
+	 */
+	public enum Argument { NONE, REQUIRED, OPTIONAL }
+
+	private final char shortName;
+	private final String longName;
+	private final Argument argument;
+
+	//Every alias, built once
+	private static final Map<String, LsOption> ALIASES = new HashMap<String, LsOption>();
+	static
+	{
+		for(LsOption option: values())
+		{
+			if(option.shortName != 0) ALIASES.put(String.valueOf(option.shortName), option);
+			if(option.longName != null) ALIASES.put(option.longName, option);
+		}
+	}
+
+	LsOption(char shortName)
+	{
+		this(shortName, null, Argument.NONE);
+	}
+
+	LsOption(char shortName, String longName)
+	{
+		this(shortName, longName, Argument.NONE);
+	}
+
+	LsOption(String longName)
+	{
+		this((char) 0, longName, Argument.NONE);
+	}
+
+	LsOption(Argument argument, String longName)
+	{
+		this((char) 0, longName, argument);
+	}
+
+	LsOption(char shortName, String longName, Argument argument)
+	{
+		this.shortName = shortName;
+		this.longName = longName;
+		this.argument = argument;
+	}
+
+	/*
+	 * Option of an alias [l, all, sort], null if unknown
+	 */
+	public static LsOption of(String alias)
+	{
+		return ALIASES.get(alias);
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public char getShortName() {
+		return shortName;
+	}
+
+	public String getLongName() {
+		return longName;
+	}
+
+	public Argument getArgument() {
+		return argument;
+	}
+	/************************************************************************************************************************/
+}
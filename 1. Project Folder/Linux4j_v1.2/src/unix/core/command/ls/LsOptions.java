@@ -0,0 +1,148 @@
+package unix.core.command.ls;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * LsOptions
+ * The options of ONE command line, resolved once: aliases are merged, the options implied by others are applied
+ * [-f, -U, -n, --time-style], numbers are parsed. Immutable: every directory (and every recursion worker) shares it.
+ * 		- flags:	a bit set of the given options (with or without argument)
+ * 		- values:	the argument of the options that have one [--sort=time]
+ */
+public final class LsOptions
+{
+	private final EnumSet<LsOption> flags;
+	private final Map<LsOption, String> values;
+	private final int maxEntries;
+	private final long watchSeconds;
+
+	private LsOptions(EnumSet<LsOption> flags, EnumMap<LsOption, String> values)
+	{
+		super();
+		this.flags = flags;
+		this.values = Collections.unmodifiableMap(values);
+		this.maxEntries = flags.contains(LsOption.MAX_ENTRIES) ? this.positiveInt(LsOption.MAX_ENTRIES) : 0;
+		this.watchSeconds = !flags.contains(LsOption.WATCH) ? -1 : values.containsKey(LsOption.WATCH) ? this.number(LsOption.WATCH) : 0;
+	}
+
+	/*
+	 * options: short options one by one [l, A] and long options with their argument [all, sort=time]
+	 * Unknown options and missing (or unexpected) arguments throw an IllegalArgumentException with the message to print.
+	 */
+	public static LsOptions parse(List<String> options)
+	{
+		EnumSet<LsOption> flags = EnumSet.noneOf(LsOption.class);
+		EnumMap<LsOption, String> values = new EnumMap<LsOption, String>(LsOption.class);
+
+		for(String option: options)
+		{
+			int equal = option.indexOf('=');
+			String name = equal < 0 ? option : option.substring(0, equal);
+			String value = equal < 0 || equal == option.length() - 1 ? null : option.substring(equal + 1);
+
+			LsOption lsOption = LsOption.of(name);
+			if(lsOption == null)
+			{
+				if(name.length() == 1) throw new IllegalArgumentException("ls: invalid option -- '" + name + "'");
+				throw new IllegalArgumentException("ls: unrecognized option '--" + name + "'");
+			}
+			if(value != null && lsOption.getArgument() == LsOption.Argument.NONE)
+				throw new IllegalArgumentException("ls: option '--" + name + "' doesn't allow an argument");
+			if(value == null && lsOption.getArgument() == LsOption.Argument.REQUIRED)
+				throw new IllegalArgumentException("ls: option '--" + name + "' requires an argument");
+
+			flags.add(lsOption);
+			if(value != null) values.put(lsOption, value);
+		}
+
+		// -f                         do not sort, enable -aU, disable -ls --color
+		if(flags.contains(LsOption.UNSORTED_ALL))
+		{
+			flags.add(LsOption.ALL);
+			flags.add(LsOption.UNSORTED);
+			flags.remove(LsOption.LONG);
+			flags.remove(LsOption.SIZE);
+			//Columns need every name before printing, -f lists one entry per line so it can be streamed
+			if(!flags.contains(LsOption.ACROSS) && !flags.contains(LsOption.COMMAS)
+					&& !flags.contains(LsOption.COLUMNS) && !flags.contains(LsOption.FORMAT))
+				flags.add(LsOption.ONE_PER_LINE);
+		}
+		// -U, sort=none                       do not sort; list entries in directory order
+		if("none".equals(values.get(LsOption.SORT)) || flags.contains(LsOption.UNSORTED))
+			flags.removeAll(EnumSet.of(LsOption.SORT_SIZE, LsOption.SORT_TIME, LsOption.SORT_VERSION, LsOption.SORT_EXTENSION));
+
+		// -n, --numeric-uid-gid      like -l, but list numeric user and group IDs
+		if(flags.contains(LsOption.NUMERIC_IDS)) flags.add(LsOption.LONG);
+
+		// --time-style=STYLE		with -l, show times using style STYLE: full-iso, long-iso, iso, locale,
+		String timeStyle = values.get(LsOption.TIME_STYLE);
+		if("full-iso".equals(timeStyle) || "long-iso".equals(timeStyle) || "iso".equals(timeStyle)) flags.add(LsOption.FULL_TIME);
+
+		return new LsOptions(flags, values);
+	}
+
+	/*
+	 * option was given (or implied), with or without argument
+	 */
+	public boolean has(LsOption option)
+	{
+		return this.flags.contains(option);
+	}
+
+	/*
+	 * Argument of option [--sort=time --> time], null if none
+	 */
+	public String value(LsOption option)
+	{
+		return this.values.get(option);
+	}
+
+	/*
+	 * option was given with one of words as argument [--format=long or --format=verbose]
+	 */
+	public boolean is(LsOption option, String... words)
+	{
+		String value = this.values.get(option);
+		if(value == null) return false;
+		for(String word: words)
+			if(value.equals(word)) return true;
+		return false;
+	}
+
+	private long number(LsOption option)
+	{
+		String value = this.values.get(option);
+		try {
+			return Long.parseLong(value);
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("ls: invalid --" + option.getLongName() + " argument '" + value + "'");
+		}
+	}
+
+	/*
+	 * A count [--max-entries=N]: 1 to Integer.MAX_VALUE, nothing else is accepted (never truncated)
+	 */
+	private int positiveInt(LsOption option)
+	{
+		long number = this.number(option);
+		if(number < 1 || number > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("ls: invalid --" + option.getLongName() + " argument '" + this.values.get(option) + "'");
+		return (int) number;
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	// --max-entries=N, 0 without limit
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	// --watch[=SECONDS], 0 until interrupted, -1 without --watch
+	public long getWatchSeconds() {
+		return watchSeconds;
+	}
+	/************************************************************************************************************************/
+}
@@ -0,0 +1,143 @@
+package unix.core.command.ls;
+
+import java.io.IOException;
+
+import unix.util.FileInfo;
+
+/*
+ * LsRecordFormat
+ * --format=jsonl|csv|nul : one record per entry for programs, nothing truncated or rounded.
+ * Fields: name, path, type, mode (st_mode), size (st_size in bytes, directories too), inode, nlink, uid, gid, mtime, atime, ctime (epoch milliseconds), target (links)
+ * 		- jsonl:	one JSON object per line
+ * 		- csv:		a header line, then one line per entry (RFC 4180 quoting)
+ * 		- nul:		the csv fields, each one terminated by NUL (13 per entry): safe for any name, no quoting at all
+ * Records are written straight into the row of the output buffer (numbers are appended as primitives).
+ */
+public enum LsRecordFormat
+{
+	JSONL, CSV, NUL;
+
+	private static final String[] FIELDS = {"name", "path", "type", "mode", "size", "inode", "nlink", "uid", "gid", "mtime", "atime", "ctime", "target"};
+
+	//File-type bits of st_mode
+	private static final int S_IFMT = 0170000;
+	private static final int S_IFREG = 0100000;
+
+	/*
+	 * Format of a --format argument, null for the text views
+	 */
+	public static LsRecordFormat of(String format)
+	{
+		if(format == null) return null;
+		switch(format)
+		{
+			case "jsonl":	return JSONL;
+			case "csv":		return CSV;
+			case "nul":		return NUL;
+			default:		return null;
+		}
+	}
+
+	/*
+	 * csv: the line of field names, printed once per command (nothing for the other formats)
+	 */
+	public StringBuilder header(StringBuilder row)
+	{
+		if(this != CSV) return row;
+		for(int i=0; i<FIELDS.length; i++) row.append(i == 0 ? "" : ",").append(FIELDS[i]);
+		return row.append('\n');
+	}
+
+	public StringBuilder record(FileInfo file, StringBuilder row) throws IOException
+	{
+		boolean link = file.isSymLink();
+		int mode = file.getMode();
+		String type = link ? "symlink"
+				: file.isDirectory() ? "directory"
+				: mode == 0 || (mode & S_IFMT) == S_IFREG ? "file"
+				: "other";
+		String target = link ? file.getSymLink() : null;
+
+		switch(this)
+		{
+			case JSONL:
+				json(row.append("{\"name\":"), file.getName());
+				json(row.append(",\"path\":"), file.getPath().toString());
+				row.append(",\"type\":\"").append(type).append('"');
+				row.append(",\"mode\":").append(mode);
+				row.append(",\"size\":").append(file.getStatSize());
+				row.append(",\"inode\":").append(file.getInode());
+				row.append(",\"nlink\":").append(file.getNlink());
+				row.append(",\"uid\":").append(file.getUid());
+				row.append(",\"gid\":").append(file.getGid());
+				row.append(",\"mtime\":").append(file.getLastModifiedMillis());
+				row.append(",\"atime\":").append(file.getLastAccessedMillis());
+				row.append(",\"ctime\":").append(file.getLastChangedMillis());
+				if(target == null) row.append(",\"target\":null");
+				else json(row.append(",\"target\":"), target);
+				return row.append("}\n");
+
+			default:
+				//csv: comma between fields and a line end, nul: NUL after every field
+				char separator = this == CSV ? ',' : '\0';
+				this.text(row, file.getName()).append(separator);
+				this.text(row, file.getPath().toString()).append(separator);
+				row.append(type).append(separator);
+				row.append(mode).append(separator);
+				row.append(file.getStatSize()).append(separator);
+				row.append(file.getInode()).append(separator);
+				row.append(file.getNlink()).append(separator);
+				row.append(file.getUid()).append(separator);
+				row.append(file.getGid()).append(separator);
+				row.append(file.getLastModifiedMillis()).append(separator);
+				row.append(file.getLastAccessedMillis()).append(separator);
+				row.append(file.getLastChangedMillis()).append(separator);
+				this.text(row, target == null ? "" : target);
+				return row.append(this == CSV ? '\n' : '\0');
+		}
+	}
+
+	private StringBuilder text(StringBuilder row, String value)
+	{
+		if(this == NUL) return row.append(value);
+
+		// csv: quoted only when needed, quotes doubled
+		boolean quote = false;
+		for(int i=0; i<value.length() && !quote; i++)
+		{
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if(!quote) return row.append(value);
+
+		row.append('"');
+		for(int i=0; i<value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if(c == '"') row.append('"');
+			row.append(c);
+		}
+		return row.append('"');
+	}
+
+	private static StringBuilder json(StringBuilder row, String value)
+	{
+		row.append('"');
+		for(int i=0; i<value.length(); i++)
+		{
+			char c = value.charAt(i);
+			switch(c)
+			{
+				case '"':	row.append("\\\""); break;
+				case '\\':	row.append("\\\\"); break;
+				case '\n':	row.append("\\n"); break;
+				case '\r':	row.append("\\r"); break;
+				case '\t':	row.append("\\t"); break;
+				default:
+					if(c < 0x20) row.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+					else row.append(c);
+			}
+		}
+		return row.append('"');
+	}
+}
@@ -0,0 +1,209 @@
+package unix.core.command.ls;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import unix.util.FileAttribute;
+import unix.util.FileInfo;
+
+/*
+ * LsRecursion
+ * -R, --recursive and ls * : lists a directory tree with a parallel traversal.
+ * Every directory is listed and rendered by its own task, the sections are written in depth-first order so the output
+ * is the same as a sequential walk. The next directories in that order are listed ahead, at most a window of them:
+ * a section is printed as soon as the ones before it are, the memory holds the window, never the whole tree.
+ *
+ * Configuration (system property):
+ * 		linux4j.walk.parallelism	number of directories listed at the same time (default 1 per core)
+ * 		linux4j.walk.window			number of directories listed ahead of the output (default 16 per thread)
+ */
+public class LsRecursion
+{
+	private static final int PARALLELISM = Math.max(1, Integer.getInteger("linux4j.walk.parallelism", Runtime.getRuntime().availableProcessors()));
+	private static final int WINDOW = Math.max(1, Integer.getInteger("linux4j.walk.window", 16 * PARALLELISM));
+	private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM);
+
+	private final LsCommandBuilder builder;
+	private final LsArguments lsArg;
+	private final LsOptions options;
+	private final Set<FileAttribute> demand;
+	private final int maxDepth;
+	private final boolean subdirOnly;
+
+	/*
+	 * options:		read-only options, shared by every task
+	 * maxDepth:	levels of subdirectories to list (1 for ls *)
+	 * subdirOnly:	ls * => the top directory lists its files only, its directories get their own section
+	 */
+	public LsRecursion(LsCommandBuilder builder, LsArguments lsArg, LsOptions options, Set<FileAttribute> demand,
+			int maxDepth, boolean subdirOnly)
+	{
+		super();
+		this.builder = builder;
+		this.lsArg = lsArg;
+		this.options = options;
+		//Directories have to be recognized to walk the tree
+		this.demand = EnumSet.copyOf(demand);
+		this.demand.add(FileAttribute.STAT);
+		this.maxDepth = maxDepth;
+		this.subdirOnly = subdirOnly;
+	}
+
+	public void list(String directory, PrintWriter out)
+	{
+		FileInfo root = new FileInfo(new File(directory), true, EnumSet.of(FileAttribute.STAT));
+
+		//Depth-first printing: the top of the stack is the next section, its children are pushed once it's printed
+		Deque<ListTask> sections = new ArrayDeque<ListTask>();
+		sections.push(new ListTask(directory, 0, new Ancestor(root, null)));
+		int running = 0;
+		while(!sections.isEmpty())
+		{
+			running += this.submit(sections, WINDOW - running);
+			ListTask next = sections.pop();
+			Section section = next.join();
+			running--;
+			out.print(section.text);
+			for(int i=section.children.size()-1; i>=0; i--) sections.push(section.children.get(i));
+		}
+		out.flush();
+	}
+
+	/*
+	 * Start the next count sections in depth-first order [from the top of the stack] that aren't started yet
+	 * (the started ones are at most a window: the scan stops after 2 windows at most)
+	 */
+	private int submit(Deque<ListTask> sections, int count)
+	{
+		int submitted = 0;
+		for(Iterator<ListTask> tasks = sections.iterator(); tasks.hasNext() && submitted < count; )
+		{
+			ListTask task = tasks.next();
+			if(task.submitted) continue;
+			task.submitted = true;
+			POOL.execute(task);
+			submitted++;
+		}
+		return submitted;
+	}
+
+
+
+	/*
+	 * Rendered listing of one directory, and the (not started) tasks of its subdirectories
+	 */
+	private static class Section
+	{
+		private final String text;
+		private final List<ListTask> children;
+
+		Section(String text, List<ListTask> children)
+		{
+			this.text = text;
+			this.children = children;
+		}
+	}
+
+	/*
+	 * Immutable chain of the directories above a task, used to detect symlink cycles by inode
+	 */
+	private static class Ancestor
+	{
+		private final long device;
+		private final long inode;
+		private final Ancestor parent;
+
+		Ancestor(FileInfo directory, Ancestor parent)
+		{
+			this.device = directory.getDevice();
+			this.inode = directory.getInode();
+			this.parent = parent;
+		}
+
+		boolean contains(FileInfo directory)
+		{
+			//No inode without the unix view, the cycle can't be detected
+			if(directory.getInode() == 0) return false;
+
+			for(Ancestor ancestor = this; ancestor != null; ancestor = ancestor.parent)
+				if(ancestor.inode == directory.getInode() && ancestor.device == directory.getDevice()) return true;
+			return false;
+		}
+	}
+
+	private class ListTask extends RecursiveTask<Section>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String directory;
+		private final int depth;
+		private final Ancestor ancestors;
+		//Started by the printer [window]
+		private boolean submitted;
+
+		ListTask(String directory, int depth, Ancestor ancestors)
+		{
+			this.directory = directory;
+			this.depth = depth;
+			this.ancestors = ancestors;
+		}
+
+		@Override
+		protected Section compute()
+		{
+			StringWriter text = new StringWriter();
+			PrintWriter out = new PrintWriter(text);
+			List<ListTask> children = new ArrayList<ListTask>();
+
+			//Separator-Line and heading of subdirectories (the top directory keeps the usual heading)
+			//(records have their path instead)
+			boolean longView = builder.isLongView(options);
+			boolean records = builder.recordFormat(options) != null;
+			if(this.depth > 0 && !records) out.println();
+			if((this.depth > 0 || !subdirOnly) && !longView && !records) out.println(this.directory + ":");
+
+			try
+			{
+				LsCommand ls = builder.prepare(this.directory, lsArg, options, demand, false);
+				if(this.depth > 0 || !subdirOnly) ls.title(this.directory);
+
+				// -d lists the directories themselves, there is nothing to walk
+				boolean walk = this.depth < maxDepth
+						&& !options.has(LsOption.DIRECTORY);
+
+				for(FileInfo file: ls.getFilesList())
+				{
+					if(!walk || !file.isDirectory() || file.getName().equals(".") || file.getName().equals("..")) continue;
+
+					if(this.ancestors.contains(file))
+					{
+						builder.diagnose("ls: " + file.getAbsolutePath() + ": not listing already-listed directory", options, out);
+						continue;
+					}
+
+					children.add(new ListTask(file.getAbsolutePath(), this.depth + 1, new Ancestor(file, this.ancestors)));
+				}
+
+				if(this.depth == 0 && subdirOnly) ls.noDirectories();
+				builder.display(ls, options, out);
+			}
+			catch(Exception e)
+			{
+				builder.diagnose("ls: cannot open directory '" + this.directory + "': " + e.getMessage(), options, out);
+			}
+
+			out.flush();
+			return new Section(text.toString(), children);
+		}
+	}
+}
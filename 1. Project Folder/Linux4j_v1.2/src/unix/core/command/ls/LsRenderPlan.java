@@ -0,0 +1,212 @@
+package unix.core.command.ls;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import unix.util.FileInfo;
+import unix.util.OutputBuffer;
+
+/*
+ * LsRenderPlan
+ * The display options of an LS-Command compiled ONCE: quoting and indicator styles are resolved,
+ * the long view becomes a fixed list of column emitters with their widths.
+ * Every view appends its rows through the plan, without format strings or style comparisons per entry.
+ */
+public class LsRenderPlan
+{
+	/*
+	 * One column of a row, appended with its trailing separator
+	 */
+	interface ColumnEmitter
+	{
+		void emit(FileInfo file, StringBuilder row) throws IOException;
+	}
+
+	// --quoting-style=WORD
+	enum Quoting
+	{
+		LITERAL,		// literal (and unknown styles)
+		SHELL,			// shell, shell-escape: single-quotes for names with a space
+		SINGLE,			// locale, shell-always, shell-escape-always
+		DOUBLE,			// c, clocale, -Q
+		ESCAPE;			// escape: backslash before spaces
+
+		static Quoting of(String style)
+		{
+			if(style == null) return LITERAL;
+			switch(style)
+			{
+				case "shell": case "shell-escape":								return SHELL;
+				case "locale": case "shell-always": case "shell-escape-always":	return SINGLE;
+				case "clocale": case "c":										return DOUBLE;
+				case "escape":													return ESCAPE;
+				default:														return LITERAL;
+			}
+		}
+	}
+
+	// --indicator-style=WORD
+	enum Indicator
+	{
+		NONE,			// none
+		SLASH,			// -p: '/' for directories
+		FILE_TYPE,		// --file-type: '@' for links, '/' for directories
+		CLASSIFY,		// -F: likewise and '*' for the others
+		EXECUTABLE;		// any other style: '*' only
+
+		static Indicator of(String style)
+		{
+			if(style == null) return NONE;
+			switch(style)
+			{
+				case "none":		return NONE;
+				case "slash":		return SLASH;
+				case "file-type":	return FILE_TYPE;
+				case "classify":	return CLASSIFY;
+				default:			return EXECUTABLE;
+			}
+		}
+	}
+
+	private final Quoting quoting;
+	private final Indicator indicator;
+	private final String sizeScale;
+	private final int sizePower;
+	//Minimum scale for allocatedSize is KB
+	private final String blockScale;
+	private final boolean allocatedSize;
+	private final ColumnEmitter[] detailedColumns;
+
+	public LsRenderPlan(boolean noOwner, boolean noGroup, boolean noAuthor, boolean numericIds, boolean isoTime, boolean showAccessTime, boolean showChangeTime,
+			String fileIndicator, String sizeScale, int sizePower, String quoting, boolean allocatedSize)
+	{
+		super();
+		this.quoting = Quoting.of(quoting);
+		this.indicator = Indicator.of(fileIndicator);
+		this.sizeScale = sizeScale;
+		this.sizePower = sizePower;
+		this.blockScale = "B".equals(sizeScale) ? "K" : sizeScale;
+		this.allocatedSize = allocatedSize;
+
+		//Long view columns, in display order
+		ArrayList<ColumnEmitter> columns = new ArrayList<ColumnEmitter>();
+		if(allocatedSize)
+			columns.add((file, row) -> this.allocatedSize(file, row));
+		columns.add((file, row) -> OutputBuffer.padRight(row, file.getFilePermissions(), 12).append(' '));
+		// -n shows the ids, names are never looked up
+		ColumnEmitter owner = numericIds
+				? (file, row) -> OutputBuffer.padRight(row, Integer.toString(file.getUid()), 20).append(' ')
+				: (file, row) -> OutputBuffer.padRight(row, file.getOwner(), 20).append(' ');
+		if(!noOwner)
+			columns.add(owner);
+		if(!noGroup)
+			columns.add(numericIds
+				? (file, row) -> OutputBuffer.padRight(row, Integer.toString(file.getGid()), 8).append(' ')
+				: (file, row) -> OutputBuffer.padRight(row, file.getGroup(), 8).append(' '));
+		if(!noAuthor)
+			columns.add(owner);
+		columns.add((file, row) -> OutputBuffer.padLeft(row, file.getFormatedSize(this.sizeScale, this.sizePower), 15).append(' '));
+		if(showAccessTime)
+			columns.add((file, row) -> OutputBuffer.padLeft(row, file.getLastAccessed(), 14).append(' '));
+		else if(showChangeTime)
+			columns.add((file, row) -> OutputBuffer.padLeft(row, file.getLastChanged(), 14).append(' '));
+		else if(!isoTime)
+			columns.add((file, row) -> OutputBuffer.padLeft(row, file.getLastModified(), 14).append(' '));
+		else
+			columns.add((file, row) -> {
+				try {
+					OutputBuffer.padLeft(row, file.getLastModifiedISO(), 20).append(' ');
+				} catch (java.text.ParseException e) { throw new IOException(e); }
+			});
+		columns.add((file, row) -> this.name(file, row));
+		columns.add((file, row) -> {
+			if(file.isSymLink()) row.append(" -> ").append(file.getSymLink());
+		});
+		this.detailedColumns = columns.toArray(new ColumnEmitter[columns.size()]);
+	}
+
+	public boolean hasAllocatedSize()
+	{
+		return this.allocatedSize;
+	}
+
+	/*
+	 * -s : allocated size column (%15.15s)
+	 */
+	public StringBuilder allocatedSize(FileInfo file, StringBuilder row)
+	{
+		return OutputBuffer.padLeft(row, file.getFormatedSize(this.blockScale, this.sizePower), 15).append(' ');
+	}
+
+	/*
+	 * -s with -m : allocated size without padding
+	 */
+	public StringBuilder allocatedSizeUnpadded(FileInfo file, StringBuilder row)
+	{
+		return row.append(file.getFormatedSize(this.blockScale, this.sizePower)).append(' ');
+	}
+
+	/*
+	 * Quoted name followed by its indicator
+	 */
+	public StringBuilder name(FileInfo file, StringBuilder row) throws IOException
+	{
+		String name = file.getName();
+		switch(this.quoting)
+		{
+			case SHELL:
+				if(name.indexOf(' ') > -1) row.append('\'').append(name).append('\'');
+				else row.append(name);
+				break;
+			case SINGLE:	row.append('\'').append(name).append('\''); break;
+			case DOUBLE:	row.append('"').append(name).append('"'); break;
+			case ESCAPE:	row.append(name.replace(" ", "\\ ")); break;
+			default:		row.append(name); break;
+		}
+		return this.indicator(file, row);
+	}
+
+	/*
+	 * Name and indicator cut or padded to width (column views)
+	 */
+	public StringBuilder paddedName(FileInfo file, StringBuilder row, int width) throws IOException
+	{
+		int start = row.length();
+		this.name(file, row);
+		int length = row.length() - start;
+		if(length > width) row.setLength(start + width);
+		else for(int i=length; i<width; i++) row.append(' ');
+		return row;
+	}
+
+	private StringBuilder indicator(FileInfo file, StringBuilder row) throws IOException
+	{
+		switch(this.indicator)
+		{
+			case CLASSIFY:
+				if(file.isSymLink()) return row.append('@');
+				if(file.isDirectory()) return row.append('/');
+				return row.append('*');
+			case FILE_TYPE:
+				if(file.isSymLink()) return row.append('@');
+				if(file.isDirectory()) return row.append('/');
+				return row;
+			case SLASH:
+				if(file.isDirectory()) return row.append('/');
+				return row;
+			case EXECUTABLE:
+				return row.append('*');
+			default:
+				return row;
+		}
+	}
+
+	/*
+	 * -l : one row of the long view
+	 */
+	public StringBuilder detailedLine(FileInfo file, StringBuilder row) throws IOException
+	{
+		for(ColumnEmitter column: this.detailedColumns) column.emit(file, row);
+		return row.append(OutputBuffer.NEWLINE);
+	}
+}
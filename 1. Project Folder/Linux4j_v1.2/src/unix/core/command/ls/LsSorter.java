@@ -0,0 +1,369 @@
+package unix.core.command.ls;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import unix.util.FileInfo;
+import unix.util.VersionKey;
+
+/*
+ * LsSorter
+ * Sorts a listing in ONE stable pass for every sort option together [name, -v, -S, -t, -u, -c, -X, -r, --group-directories-first]:
+ * the sort keys are extracted once per entry into primitive arrays, then an index array is merge-sorted on them
+ * (in parallel above a size threshold).
+ * Names are turned once into binary keys: a CollationKey of the current locale, or a VersionKey for -v.
+ * The same keys feed a bounded heap for --max-entries=N (top-K of the listing).
+ *
+ * Configuration (system property):
+ * 		linux4j.sort.threshold		entries from which the sort runs in parallel (default 8192)
+ */
+public class LsSorter
+{
+	public static final int PARALLEL_THRESHOLD = Integer.getInteger("linux4j.sort.threshold", 8192);
+
+	//Below this size a range is sorted by insertion
+	private static final int INSERTION_THRESHOLD = 16;
+
+	public enum SortKey
+	{
+		NONE, NAME, VERSION, SIZE, MODIFICATION_TIME, ACCESS_TIME, CHANGE_TIME, EXTENSION
+	}
+
+	private SortKey key;
+	private boolean reverse;
+	private boolean directoriesFirst;
+
+	public LsSorter()
+	{
+		super();
+		this.key = SortKey.NONE;
+		this.reverse = false;
+		this.directoriesFirst = false;
+	}
+
+	//Nothing to do when no sort option was given
+	public boolean isActive()
+	{
+		return this.key != SortKey.NONE || this.reverse || this.directoriesFirst;
+	}
+
+	/*
+	 * Sorted copy of files
+	 */
+	public ArrayList<FileInfo> sort(List<FileInfo> files)
+	{
+		final int size = files.size();
+
+		//Extract every key ONCE
+		SortKeys keys = new SortKeys(size);
+		int position = 0;
+		for(FileInfo file: files)
+		{
+			keys.set(position, file, position);
+			position++;
+		}
+
+		int[] index = new int[size];
+		for(int i=0; i<size; i++) index[i] = i;
+		int[] buffer = new int[size];
+
+		if(size >= PARALLEL_THRESHOLD) ForkJoinPool.commonPool().invoke(new ParallelMergeSort(index, buffer, 0, size, keys));
+		else mergeSort(index, buffer, 0, size, keys);
+
+		ArrayList<FileInfo> sorted = new ArrayList<FileInfo>(size);
+		for(int i=0; i<size; i++) sorted.add(keys.entries[index[i]]);
+		return sorted;
+	}
+
+	/*
+	 * --max-entries=N: the first limit entries of the sorted listing, read from files in ONE pass.
+	 * A bounded heap keeps the limit best entries seen so far (its root is the worst of them):
+	 * O(n log k) time and only k entries retained, whatever the size of the directory.
+	 */
+	public ArrayList<FileInfo> top(Iterable<FileInfo> files, int limit)
+	{
+		ArrayList<FileInfo> top = new ArrayList<FileInfo>();
+		if(limit <= 0) return top;
+
+		//The first entries, allocated as they come: limit can be far above the size of the directory
+		Iterator<FileInfo> entries = files.iterator();
+		while(top.size() < limit && entries.hasNext()) top.add(entries.next());
+
+		//No sort: the first entries of the directory, the rest isn't even read
+		if(!this.isActive()) return top;
+		//Every entry is retained: a plain sort
+		if(!entries.hasNext()) return this.sort(top);
+
+		//One slot per retained entry, plus a free slot for the candidate
+		SortKeys keys = new SortKeys(limit + 1);
+		int[] heap = new int[limit];
+		int heapSize = 0;
+		int freeSlot = limit;
+		int position = 0;
+		for(FileInfo file: top)
+		{
+			keys.set(heapSize, file, position++);
+			heap[heapSize] = heapSize;
+			siftUp(heap, heapSize++, keys);
+		}
+
+		while(entries.hasNext())
+		{
+			keys.set(freeSlot, entries.next(), position++);
+			//Better than the worst retained entry: it takes its place, the evicted slot is the next free one
+			if(keys.compare(freeSlot, heap[0]) < 0)
+			{
+				int evicted = heap[0];
+				heap[0] = freeSlot;
+				freeSlot = evicted;
+				siftDown(heap, 0, heapSize, keys);
+			}
+			keys.entries[freeSlot] = null;
+		}
+
+		int[] buffer = new int[heapSize];
+		mergeSort(heap, buffer, 0, heapSize, keys);
+		top = new ArrayList<FileInfo>(heapSize);
+		for(int i=0; i<heapSize; i++) top.add(keys.entries[heap[i]]);
+		return top;
+	}
+
+	/*
+	 * The same order as an entry comparator, for listings kept sorted while they change [--watch]:
+	 * keys are read from the entries on each comparison, names break the ties instead of the directory position
+	 */
+	public Comparator<FileInfo> comparator()
+	{
+		final Collator collator = Collator.getInstance();
+		return (a, b) -> {
+			// --group-directories-first isn't affected by -r
+			if(this.directoriesFirst && a.isDirectory() != b.isDirectory()) return a.isDirectory() ? -1 : 1;
+
+			int result;
+			switch(this.key)
+			{
+				// Largest/newest first
+				case SIZE:				result = Long.compare(b.getLength(), a.getLength()); break;
+				case MODIFICATION_TIME:	result = Long.compare(b.getLastModifiedMillis(), a.getLastModifiedMillis()); break;
+				case ACCESS_TIME:		result = Long.compare(b.getLastAccessedMillis(), a.getLastAccessedMillis()); break;
+				case CHANGE_TIME:		result = Long.compare(b.getLastChangedMillis(), a.getLastChangedMillis()); break;
+				case EXTENSION:			result = a.getExtension().compareTo(b.getExtension()); break;
+				default:				result = 0; break;
+			}
+			if(result == 0 && this.key == SortKey.VERSION) result = new VersionKey(a.getName()).compareTo(new VersionKey(b.getName()));
+			if(result == 0 && this.key != SortKey.NONE && this.key != SortKey.VERSION) result = collator.compare(a.getName(), b.getName());
+			if(result == 0) result = a.getName().compareTo(b.getName());
+			return this.reverse ? -result : result;
+		};
+	}
+
+	//Max-heap on the sort order: the root is the entry that would be listed last
+	private static void siftUp(int[] heap, int node, IndexComparator comparator)
+	{
+		while(node > 0)
+		{
+			int parent = (node - 1) >>> 1;
+			if(comparator.compare(heap[node], heap[parent]) <= 0) return;
+			int swap = heap[node]; heap[node] = heap[parent]; heap[parent] = swap;
+			node = parent;
+		}
+	}
+
+	private static void siftDown(int[] heap, int node, int size, IndexComparator comparator)
+	{
+		while(true)
+		{
+			int worst = node;
+			int left = 2 * node + 1, right = left + 1;
+			if(left < size && comparator.compare(heap[left], heap[worst]) > 0) worst = left;
+			if(right < size && comparator.compare(heap[right], heap[worst]) > 0) worst = right;
+			if(worst == node) return;
+			int swap = heap[node]; heap[node] = heap[worst]; heap[worst] = swap;
+			node = worst;
+		}
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public SortKey getKey() {
+		return key;
+	}
+	public void setKey(SortKey key) {
+		this.key = key;
+	}
+
+	public boolean isReverse() {
+		return reverse;
+	}
+	public void setReverse(boolean reverse) {
+		this.reverse = reverse;
+	}
+
+	public boolean isDirectoriesFirst() {
+		return directoriesFirst;
+	}
+	public void setDirectoriesFirst(boolean directoriesFirst) {
+		this.directoriesFirst = directoriesFirst;
+	}
+	/************************************************************************************************************************/
+
+
+
+	/*
+	 * Sort keys of a set of slots, extracted once per entry into primitive arrays
+	 */
+	private class SortKeys implements IndexComparator
+	{
+		private final FileInfo[] entries;
+		private final long[] keys;
+		private final String[] extensions;
+		private final boolean[] directories;
+		//Names sort the listing, or break the ties of the other keys (-v sorts ties by version too)
+		private final CollationKey[] names;
+		private final VersionKey[] versions;
+		//Position in the directory, equal entries keep the directory order
+		private final int[] positions;
+		private final Collator collator;
+
+		SortKeys(int slots)
+		{
+			this.entries = new FileInfo[slots];
+			this.keys = new long[slots];
+			this.extensions = key == SortKey.EXTENSION ? new String[slots] : null;
+			this.directories = directoriesFirst ? new boolean[slots] : null;
+			this.versions = key == SortKey.VERSION ? new VersionKey[slots] : null;
+			this.names = key != SortKey.NONE && this.versions == null ? new CollationKey[slots] : null;
+			this.positions = new int[slots];
+			this.collator = Collator.getInstance();
+		}
+
+		void set(int slot, FileInfo file, int position)
+		{
+			this.entries[slot] = file;
+			this.positions[slot] = position;
+			if(this.names != null) this.names[slot] = this.collator.getCollationKey(file.getName());
+			if(this.versions != null) this.versions[slot] = new VersionKey(file.getName());
+			if(this.directories != null) this.directories[slot] = file.isDirectory();
+
+			switch(key)
+			{
+				// Largest/newest first
+				case SIZE:				this.keys[slot] = -file.getLength(); break;
+				case MODIFICATION_TIME:	this.keys[slot] = -file.getLastModifiedMillis(); break;
+				case ACCESS_TIME:		this.keys[slot] = -file.getLastAccessedMillis(); break;
+				case CHANGE_TIME:		this.keys[slot] = -file.getLastChangedMillis(); break;
+				case EXTENSION:			this.extensions[slot] = file.getExtension(); break;
+				default:				break;
+			}
+		}
+
+		@Override
+		public int compare(int a, int b)
+		{
+			// --group-directories-first isn't affected by -r
+			if(this.directories != null && this.directories[a] != this.directories[b]) return this.directories[a] ? -1 : 1;
+
+			int result = this.extensions != null ? this.extensions[a].compareTo(this.extensions[b]) : Long.compare(this.keys[a], this.keys[b]);
+			if(result == 0 && this.names != null) result = this.names[a].compareTo(this.names[b]);
+			if(result == 0 && this.versions != null) result = this.versions[a].compareTo(this.versions[b]);
+			if(result == 0) result = Integer.compare(this.positions[a], this.positions[b]);
+			return reverse ? -result : result;
+		}
+	}
+
+	/*
+	 * Compares two entries by their position in the key arrays
+	 */
+	interface IndexComparator
+	{
+		int compare(int a, int b);
+	}
+
+	/*
+	 * Merge sort of index[from, to) (buffer is a scratch array of the same size)
+	 */
+	static void mergeSort(int[] index, int[] buffer, int from, int to, IndexComparator comparator)
+	{
+		if(to - from <= INSERTION_THRESHOLD)
+		{
+			insertionSort(index, from, to, comparator);
+			return;
+		}
+
+		int middle = (from + to) >>> 1;
+		mergeSort(index, buffer, from, middle, comparator);
+		mergeSort(index, buffer, middle, to, comparator);
+		merge(index, buffer, from, middle, to, comparator);
+	}
+
+	private static void insertionSort(int[] index, int from, int to, IndexComparator comparator)
+	{
+		for(int i=from+1; i<to; i++)
+		{
+			int current = index[i];
+			int j = i - 1;
+			while(j >= from && comparator.compare(index[j], current) > 0)
+			{
+				index[j + 1] = index[j];
+				j--;
+			}
+			index[j + 1] = current;
+		}
+	}
+
+	private static void merge(int[] index, int[] buffer, int from, int middle, int to, IndexComparator comparator)
+	{
+		//Halves already in order
+		if(comparator.compare(index[middle - 1], index[middle]) <= 0) return;
+
+		System.arraycopy(index, from, buffer, from, to - from);
+		int left = from, right = middle, out = from;
+		while(left < middle && right < to)
+			index[out++] = comparator.compare(buffer[right], buffer[left]) < 0 ? buffer[right++] : buffer[left++];
+		while(left < middle) index[out++] = buffer[left++];
+		while(right < to) index[out++] = buffer[right++];
+	}
+
+	/*
+	 * Both halves are sorted in parallel, then merged
+	 */
+	private static class ParallelMergeSort extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int[] index;
+		private final int[] buffer;
+		private final int from;
+		private final int to;
+		private final IndexComparator comparator;
+
+		ParallelMergeSort(int[] index, int[] buffer, int from, int to, IndexComparator comparator)
+		{
+			this.index = index;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+			this.comparator = comparator;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(this.to - this.from < PARALLEL_THRESHOLD)
+			{
+				mergeSort(this.index, this.buffer, this.from, this.to, this.comparator);
+				return;
+			}
+
+			int middle = (this.from + this.to) >>> 1;
+			invokeAll(new ParallelMergeSort(this.index, this.buffer, this.from, middle, this.comparator),
+					  new ParallelMergeSort(this.index, this.buffer, middle, this.to, this.comparator));
+			merge(this.index, this.buffer, this.from, middle, this.to, this.comparator);
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package unix.core.command.ls;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import unix.util.FileInfo;
+import unix.util.OutputBuffer;
+
+/*
+ * LsWatch
+ * --watch[=SECONDS] : lists a directory once, then keeps the listing up to date from the WatchService events.
+ * The listing is kept as an ordered model (same order as the sort options): a created, modified or deleted entry
+ * is re-read alone and moved to its place, so a refresh costs the number of changes, not the size of the directory.
+ * 		- on a terminal, only the changed rows are redrawn (ANSI insert/delete line)
+ * 		- redirected [ls --watch > out.txt], or too long for the terminal, a delta stream is printed:
+ * 		  "+ row" created, "~ row" modified, "- row" deleted
+ *
+ * Configuration (environment):
+ * 		LINES	height of the terminal (default 24), longer listings are followed as a delta stream
+ */
+public class LsWatch
+{
+	private static final String ESC = "\033[";
+
+	private final LsCommand ls;
+	private final LsRenderPlan plan;
+	private final boolean longView;
+	private boolean terminal;
+
+	//Rows in display order, and the entry shown for each name
+	private final ArrayList<FileInfo> rows;
+	private final Map<String, FileInfo> byName;
+	private final Comparator<FileInfo> order;
+
+	/*
+	 * terminal:	output is a terminal, changed rows can be redrawn in place (otherwise the delta stream is printed)
+	 */
+	public LsWatch(LsCommand ls, LsRenderPlan plan, boolean longView, boolean terminal)
+	{
+		super();
+		this.ls = ls;
+		this.plan = plan;
+		this.longView = longView;
+		this.order = ls.ordering();
+		this.terminal = terminal;
+		this.rows = new ArrayList<FileInfo>();
+		this.byName = new HashMap<String, FileInfo>();
+	}
+
+	/*
+	 * First listing, read once the directory is watched
+	 */
+	private void load() throws IOException
+	{
+		this.rows.addAll(this.ls.getFilesList());
+		//The model keeps the comparator's order (name instead of directory position for ties)
+		if(this.order != null) Collections.sort(this.rows, this.order);
+		for(FileInfo file: this.rows) this.byName.put(file.getName(), file);
+
+		String lines = System.getenv("LINES");
+		int height = lines != null && lines.matches("\\d+") ? Integer.parseInt(lines) : 24;
+		this.terminal = this.terminal && this.rows.size() + (this.longView ? 2 : 0) < height;
+	}
+
+	/*
+	 * Print the listing, then follow its changes until seconds have passed (0: until interrupted or out fails)
+	 */
+	public void watch(PrintWriter out, long seconds) throws IOException
+	{
+		Path directory = Paths.get(this.ls.getDirectory());
+		OutputBuffer buffer = new OutputBuffer(out);
+
+		try(WatchService watcher = FileSystems.getDefault().newWatchService())
+		{
+			//Registered before the first listing is read: nothing happening in between is lost
+			//(a change seen by both is refreshed once more, with the same result)
+			directory.register(watcher,
+					StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+			this.load();
+
+			if(this.longView) buffer.row().append(directory.toFile().getName()).append(':').append(OutputBuffer.NEWLINE).append(OutputBuffer.NEWLINE);
+			for(FileInfo file: this.rows)
+			{
+				this.render(file, buffer.row()).append(OutputBuffer.NEWLINE);
+				buffer.endRow();
+			}
+			buffer.flush();
+			if(out.checkError()) return;
+
+			long deadline = seconds > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds) : Long.MAX_VALUE;
+			while(!Thread.currentThread().isInterrupted())
+			{
+				long remaining = deadline - System.nanoTime();
+				if(remaining <= 0) break;
+
+				WatchKey key = watcher.poll(Math.min(remaining, TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+				if(key == null) continue;
+
+				//Every pending event, a file changed several times is refreshed once
+				Set<String> changed = new LinkedHashSet<String>();
+				boolean overflow = false;
+				for(; key != null; key = watcher.poll())
+				{
+					for(WatchEvent<?> event: key.pollEvents())
+					{
+						if(event.kind() == StandardWatchEventKinds.OVERFLOW) overflow = true;
+						else changed.add(event.context().toString());
+					}
+					if(!key.reset()) return;
+				}
+
+				// Events were lost: every known name, and every name of the directory, is checked again
+				if(overflow)
+				{
+					changed.addAll(this.byName.keySet());
+					String[] names = directory.toFile().list();
+					if(names != null) Collections.addAll(changed, names);
+				}
+
+				for(String name: changed) this.refresh(directory.resolve(name), name, buffer);
+				buffer.flush();
+				//Nobody reads anymore [closed pipe, session client gone]
+				if(out.checkError()) return;
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			buffer.flush();
+		}
+	}
+
+	/*
+	 * Re-read one entry and move its row: removed, inserted, or both for a modification
+	 */
+	private void refresh(Path path, String name, OutputBuffer buffer) throws IOException
+	{
+		FileInfo previous = this.byName.remove(name);
+		FileInfo current = Files.exists(path, LinkOption.NOFOLLOW_LINKS) ? this.ls.accept(path) : null;
+
+		if(previous != null)
+		{
+			int index = this.indexOf(previous);
+			this.rows.remove(index);
+			if(this.terminal) this.deleteRow(index, buffer.row());
+			else if(current == null) this.render(previous, buffer.row().append("- ")).append(OutputBuffer.NEWLINE);
+		}
+
+		if(current != null)
+		{
+			this.byName.put(name, current);
+			int index = this.insertionPoint(current);
+			this.rows.add(index, current);
+			if(this.terminal) this.insertRow(index, current, buffer.row());
+			else this.render(current, buffer.row().append(previous != null ? "~ " : "+ ")).append(OutputBuffer.NEWLINE);
+		}
+		buffer.endRow();
+	}
+
+	private int indexOf(FileInfo file)
+	{
+		if(this.order != null)
+		{
+			int index = Collections.binarySearch(this.rows, file, this.order);
+			if(index >= 0 && this.rows.get(index) == file) return index;
+		}
+		//Unsorted listing (or an entry whose keys changed under it)
+		return this.rows.indexOf(file);
+	}
+
+	private int insertionPoint(FileInfo file)
+	{
+		//Unsorted listings show new entries last, like a new directory read would
+		if(this.order == null) return this.rows.size();
+		int index = Collections.binarySearch(this.rows, file, this.order);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	/*
+	 * The cursor stays on the line below the listing: it moves up to the row, edits it, and comes back
+	 */
+	private void deleteRow(int index, StringBuilder row)
+	{
+		int up = this.rows.size() + 1 - index;
+		row.append(ESC).append(up).append('A').append(ESC).append('M');
+		if(up > 1) row.append(ESC).append(up - 1).append('B');
+	}
+
+	private void insertRow(int index, FileInfo file, StringBuilder row) throws IOException
+	{
+		//A new line at the bottom first, so the terminal scrolls instead of dropping the last row
+		int up = this.rows.size() - index;
+		row.append(OutputBuffer.NEWLINE).append(ESC).append(up).append('A').append(ESC).append('L');
+		this.render(file, row).append('\r');
+		row.append(ESC).append(up).append('B');
+	}
+
+	/*
+	 * Row of an entry (without its line end): the long line with -l, the name otherwise
+	 */
+	private StringBuilder render(FileInfo file, StringBuilder row) throws IOException
+	{
+		if(!this.longView) return this.plan.name(file, row);
+		this.plan.detailedLine(file, row);
+		row.setLength(row.length() - OutputBuffer.NEWLINE.length());
+		return row;
+	}
+}
@@ -0,0 +1,76 @@
+package unix.core.command.updatedb;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import unix.core.base.Arguments;
+import unix.util.PathIndex;
+
+/*
+ * UpdatedbArguments
+ * updatedb [-v] [--database=FILE] [ROOT]... [> out.txt]
+ * Without ROOT: the roots of the current index, or the Shell-Directory if there is no index yet.
+ */
+public class UpdatedbArguments implements Arguments
+{
+	private ArrayList<String> roots;
+	private String outFile;
+
+	private boolean verbose;
+	private boolean help;
+	private String database;
+
+
+	public UpdatedbArguments(String currentDirectory, List<String> options, ArrayList<String> secondArgument) throws Exception
+	{
+		super();
+		this.roots = new ArrayList<String>();
+		this.database = PathIndex.DEFAULT_DATABASE;
+
+		for (String option: options)
+		{
+			if (option.equals("v") || option.equals("verbose")) this.verbose = true;
+			else if (option.equals("help")) this.help = true;
+			else if (option.startsWith("database=")) this.database = Paths.get(currentDirectory).resolve(option.substring(9)).toString();
+			else if (option.length() == 1) throw new IllegalArgumentException("updatedb: invalid option -- '" + option + "'");
+			else throw new IllegalArgumentException("updatedb: unrecognized option '--" + option + "'");
+		}
+
+		//Get Roots and OUT-file
+		Boolean isOutFile=false;
+		for (String arg: secondArgument)
+		{
+			if (isOutFile) this.outFile=arg;
+			else if (arg.equals(">")) isOutFile=true;
+			//Home Directory [~]
+			else if (arg.charAt(0) == '~') this.roots.add(System.getProperty("user.home"));
+			//Relative-Absolute Path, indexed absolute and normalized
+			else this.roots.add(Paths.get(currentDirectory).resolve(arg).toAbsolutePath().normalize().toString());
+		}
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	@Override
+	public String getOutFile() {
+		return outFile;
+	}
+
+	// Empty: the roots of the current index
+	public ArrayList<String> getRoots() {
+		return roots;
+	}
+
+	public boolean isVerbose() {
+		return verbose;
+	}
+
+	public boolean isHelp() {
+		return help;
+	}
+
+	public String getDatabase() {
+		return database;
+	}
+	/************************************************************************************************************************/
+}
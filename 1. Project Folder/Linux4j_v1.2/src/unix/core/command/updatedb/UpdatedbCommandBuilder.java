@@ -0,0 +1,63 @@
+package unix.core.command.updatedb;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import unix.core.base.CommandParser;
+import unix.core.base.SpecificCommandBuilder;
+import unix.util.PathIndex;
+import unix.util.PathIndexer;
+
+/*
+ * UpdatedbCommandBuilder
+ * updatedb: (re)builds the index of locate, only the directories changed since the last run are read.
+ */
+public class UpdatedbCommandBuilder implements SpecificCommandBuilder
+{
+	public void execute(CommandParser command, String currentDirectory, PrintWriter out) throws Exception
+	{
+		UpdatedbArguments updatedbArg = (UpdatedbArguments) command.getArguments();
+
+		if (updatedbArg.isHelp())
+		{
+			this.printHelp(out);
+			return;
+		}
+
+		Path database = Paths.get(updatedbArg.getDatabase());
+		List<String> roots = updatedbArg.getRoots();
+		if (roots.isEmpty())
+		{
+			roots = Collections.singletonList(currentDirectory);
+			if (Files.isRegularFile(database))
+			{
+				try { roots = new ArrayList<String>(PathIndex.open(database).getRoots()); }
+				catch (IOException e) {} //Not an index: rebuilt from the Shell-Directory
+			}
+		}
+
+		PathIndexer indexer = new PathIndexer(database);
+		try { indexer.update(roots); }
+		catch (IOException e) { out.println("updatedb: " + database + ": " + e.getMessage()); return; }
+
+		// -v, --verbose
+		if (updatedbArg.isVerbose()) out.println(indexer);
+	}
+
+	public void printHelp(PrintWriter out)
+	{
+		out.println("Usage: updatedb [OPTION]... [ROOT]...");
+		out.println("Index the paths under each ROOT for locate (by default the roots of the current index,");
+		out.println("or the current directory). Only the directories modified since the last run are read again.");
+		out.println();
+		out.println("      --database=FILE    write FILE instead of " + PathIndex.DEFAULT_DATABASE);
+		out.println("  -v, --verbose          print what was indexed and read");
+		out.println("      --help             display this help and exit");
+	}
+}
@@ -1,25 +1,104 @@
 package unix.test;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.Scanner;
 
+import unix.core.base.BatchRunner;
+import unix.core.base.SessionServer;
 import unix.core.base.Shell;
+import unix.util.ConsoleStream;
 
 public class Run {
 
-	public static void main(String[] args) throws Exception 
+	/*
+	 * Interactive shell by default, or batch mode:
+	 * 		Run --batch [SCRIPT] [--keep-going]		commands of SCRIPT (stdin without SCRIPT or with -)
+	 * 												exit status 1 after the first failure (after all of them with --keep-going)
+	 * 		Run --server [PORT]						sessions on a loopback port (any free port without PORT)
+	 */
+	public static void main(String[] args) throws Exception
 	{
+		boolean batch = false, keepGoing = false, server = false;
+		String script = null;
+		for(String arg: args)
+		{
+			if(arg.equals("-b") || arg.equals("--batch")) batch = true;
+			else if(arg.equals("-k") || arg.equals("--keep-going")) keepGoing = true;
+			else if(arg.equals("-s") || arg.equals("--server")) server = true;
+			else script = arg;
+		}
+		if(batch) System.exit(runBatch(script, keepGoing));
+		if(server)
+		{
+			SessionServer sessions = new SessionServer(script == null ? 0 : Integer.parseInt(script));
+			//Interrupted [Ctrl-C, kill]: the sessions are closed and the secret file deleted
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> close(sessions)));
+			try
+			{
+				System.err.println(sessions);
+				sessions.serve();
+			}
+			finally
+			{
+				close(sessions);
+			}
+			return;
+		}
+
 		Shell unixShell = new Shell();
-		
+
 
 		Scanner reader = new Scanner(System.in);
 		String commandLine = null;
-		
-		while(1==1)
+
+		//Until the end of the input
+		try
+		{
+			while(true)
+			{
+				System.out.print(unixShell.getCurrentDirectory()+">");
+				if(!reader.hasNextLine()) break;
+				commandLine = reader.nextLine();
+
+				unixShell.execute(commandLine);
+			}
+		}
+		finally
+		{
+			unixShell.close();
+		}
+	}
+
+	/*
+	 * Closed by the end of serve() or by the shutdown hook (twice is harmless), a failure is only reported
+	 */
+	private static void close(SessionServer sessions)
+	{
+		try { sessions.close(); }
+		catch(IOException e) { System.err.println("linux4j: can't close the sessions: " + e.getMessage()); }
+	}
+
+	/*
+	 * Output buffered for the whole script, the report goes to stderr
+	 */
+	private static int runBatch(String script, boolean keepGoing) throws Exception
+	{
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new ConsoleStream()), 1 << 16), false);
+		InputStream in = script == null || script.equals("-") ? System.in : new FileInputStream(script);
+		boolean success;
+		try(BatchRunner runner = new BatchRunner(out, keepGoing);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(in)))
 		{
-			System.out.print(unixShell.getCurrentDirectory()+">");
-			commandLine = reader.nextLine();
-			
-			unixShell.execute(commandLine);	
+			success = runner.run(reader);
+			System.err.println(runner.report());
 		}
+		return success ? 0 : 1;
 	}
 
 }
@@ -0,0 +1,136 @@
+package unix.util;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.UnaryOperator;
+
+/*
+ * AttributeLoader
+ * Reads the attributes of a listing's entries, in parallel once the listing is big enough to pay for it.
+ * Entries are loaded in place, so the listing keeps the exact same order as the sequential path.
+ *
+ * Configuration (system properties):
+ * 		linux4j.stat.threshold		entries below which the load stays sequential (default 256)
+ * 		linux4j.stat.parallelism	maximum number of concurrent stat calls (default 4 per core, at most 64)
+ */
+public class AttributeLoader
+{
+	public static final int DEFAULT_THRESHOLD = Integer.getInteger("linux4j.stat.threshold", 256);
+	public static final int DEFAULT_PARALLELISM = Integer.getInteger("linux4j.stat.parallelism",
+			Math.min(64, 4 * Runtime.getRuntime().availableProcessors()));
+
+	private static final AttributeLoader DEFAULT_LOADER = new AttributeLoader(DEFAULT_THRESHOLD, DEFAULT_PARALLELISM);
+
+	private final int threshold;
+	private final int parallelism;
+	private volatile ForkJoinPool pool;
+
+	public AttributeLoader(int threshold, int parallelism)
+	{
+		super();
+		this.threshold = Math.max(1, threshold);
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public static AttributeLoader getDefault()
+	{
+		return DEFAULT_LOADER;
+	}
+
+	/*
+	 * Read the demanded attributes of every entry of files
+	 */
+	public void load(List<FileInfo> files, Set<FileAttribute> demand)
+	{
+		if(demand.isEmpty() || files.isEmpty()) return;
+
+		//Small listings: the fork/join overhead costs more than the stat calls
+		if(files.size() < this.threshold || this.parallelism == 1)
+		{
+			for(FileInfo file: files) file.load(demand);
+			return;
+		}
+
+		FileInfo[] entries = files.toArray(new FileInfo[0]);
+		int batch = Math.max(16, entries.length / (this.parallelism * 4));
+		this.getPool().invoke(new LoadTask(entries, file -> { file.load(demand); return file; }, 0, entries.length, batch));
+	}
+	
+	/*
+	 * Replace every entry of files by operator(entry), in place and in parallel like load [-L: links --> targets]
+	 */
+	public void replaceAll(List<FileInfo> files, UnaryOperator<FileInfo> operator)
+	{
+		if(files.size() < this.threshold || this.parallelism == 1)
+		{
+			files.replaceAll(operator);
+			return;
+		}
+
+		FileInfo[] entries = files.toArray(new FileInfo[0]);
+		int batch = Math.max(16, entries.length / (this.parallelism * 4));
+		this.getPool().invoke(new LoadTask(entries, operator, 0, entries.length, batch));
+		for(int i=0; i<entries.length; i++) files.set(i, entries[i]);
+	}
+
+	private ForkJoinPool getPool()
+	{
+		if(this.pool == null)
+		{
+			synchronized(this)
+			{
+				if(this.pool == null) this.pool = new ForkJoinPool(this.parallelism);
+			}
+		}
+		return this.pool;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+
+
+	/*
+	 * Splits [from, to) until the range fits in one batch, each worker then loads (or replaces) its batch sequentially
+	 */
+	private static class LoadTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final FileInfo[] entries;
+		private final UnaryOperator<FileInfo> operator;
+		private final int from;
+		private final int to;
+		private final int batch;
+
+		LoadTask(FileInfo[] entries, UnaryOperator<FileInfo> operator, int from, int to, int batch)
+		{
+			this.entries = entries;
+			this.operator = operator;
+			this.from = from;
+			this.to = to;
+			this.batch = batch;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(this.to - this.from <= this.batch)
+			{
+				for(int i=this.from; i<this.to; i++) this.entries[i] = this.operator.apply(this.entries[i]);
+				return;
+			}
+
+			int middle = (this.from + this.to) >>> 1;
+			invokeAll(new LoadTask(this.entries, this.operator, this.from, middle, this.batch),
+					  new LoadTask(this.entries, this.operator, middle, this.to, this.batch));
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package unix.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/*
+ * ConsoleStream
+ * System.out for the writers of the commands: System.out swallows its write errors [closed pipe: ls --watch | head],
+ * here they are thrown again, so the PrintWriter on top of it sees them (checkError) and a command following
+ * the console for ever can stop.
+ */
+public class ConsoleStream extends FilterOutputStream
+{
+	public ConsoleStream()
+	{
+		super(System.out);
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		this.out.write(b);
+		this.check();
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		this.out.write(b, off, len);
+		this.check();
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		this.out.flush();
+		this.check();
+	}
+
+	//System.out is left open: it's shared by the whole process
+	@Override
+	public void close() throws IOException
+	{
+		this.flush();
+	}
+
+	private void check() throws IOException
+	{
+		if(((PrintStream) this.out).checkError()) throw new IOException("Broken pipe");
+	}
+}
@@ -0,0 +1,210 @@
+package unix.util;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * FieldFormat
+ * Text of the fields shown by every view of ls [timestamps, sizes, permissions], without format strings:
+ * 		- timestamps are rendered with java.time and cached per minute (a listing rarely has more than a few distinct minutes)
+ * 		- sizes are formatted from a unit table with integer arithmetic
+ * 		- permissions are interned strings looked up by mode
+ * Every method is thread-safe, the caches are shared by all the listings of the process.
+ */
+public final class FieldFormat
+{
+	private static final ZoneId ZONE = ZoneId.systemDefault();
+
+	// Like ls: files older than 6 months (or in the future) show the year instead of the time
+	private static final long RECENT = TimeUnit.DAYS.toMillis(365 / 2);
+	private static final DateTimeFormatter RECENT_TIME = DateTimeFormatter.ofPattern("MMM dd HH:mm").withZone(ZONE);
+	private static final DateTimeFormatter OLD_TIME = DateTimeFormatter.ofPattern("MMM dd  yyyy").withZone(ZONE);
+	private static final DateTimeFormatter ISO_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm'Z'").withZone(ZoneOffset.UTC);
+
+	//Direct-mapped caches: one slot per minute bucket (hashed), a collision just renders the text again
+	private static final int TIME_SLOTS = 1 << 12;
+	private static final TimeText[] TIMES = new TimeText[TIME_SLOTS];
+	private static final TimeText[] ISO_TIMES = new TimeText[TIME_SLOTS];
+
+	private static final char[] UNITS = {'B', 'K', 'M', 'G', 'T'};
+
+	//File-type bits of st_mode
+	private static final int S_IFMT   = 0170000;
+	private static final int S_IFSOCK = 0140000;
+	private static final int S_IFLNK  = 0120000;
+	private static final int S_IFBLK  = 0060000;
+	private static final int S_IFDIR  = 0040000;
+	private static final int S_IFCHR  = 0020000;
+	private static final int S_IFIFO  = 0010000;
+
+	//One string per (type, permission bits), filled on first use: 8 types x 07777
+	private static final String[] PERMISSIONS = new String[8 << 12];
+	//Permissions without the unix view: directory flag and r/w/x of the current user
+	private static final String[] BASIC_PERMISSIONS = new String[16];
+
+	private FieldFormat() {}
+
+
+	/******************************************************TIMESTAMPS*************************************************************/
+	/*
+	 * "Oct 17 21:28" for recent files, "Jan 01  1970" for the others
+	 */
+	public static String time(long millis)
+	{
+		long now = System.currentTimeMillis();
+		boolean recent = millis <= now + TimeUnit.MINUTES.toMillis(1) && millis > now - RECENT;
+		return cached(TIMES, millis, recent, recent ? RECENT_TIME : OLD_TIME);
+	}
+
+	/*
+	 * --full-time, --time-style=iso: "2024-01-31T09:15Z" (UTC)
+	 */
+	public static String isoTime(long millis)
+	{
+		return cached(ISO_TIMES, millis, true, ISO_TIME);
+	}
+
+	private static String cached(TimeText[] cache, long millis, boolean recent, DateTimeFormatter formatter)
+	{
+		long minute = Math.floorDiv(millis, 60000L);
+		int slot = (int) (minute ^ (minute >>> 32)) & (TIME_SLOTS - 1);
+
+		//Entries are immutable, a racy read sees either null, an older entry or a complete one
+		TimeText entry = cache[slot];
+		if(entry != null && entry.minute == minute && entry.recent == recent) return entry.text;
+
+		String text = formatter.format(Instant.ofEpochMilli(minute * 60000L));
+		cache[slot] = new TimeText(minute, recent, text);
+		return text;
+	}
+
+	private static final class TimeText
+	{
+		private final long minute;
+		private final boolean recent;
+		private final String text;
+
+		TimeText(long minute, boolean recent, String text)
+		{
+			this.minute = minute;
+			this.recent = recent;
+			this.text = text;
+		}
+	}
+	/******************************************************************************************************************************/
+
+
+	/********************************************************SIZES****************************************************************/
+	/*
+	 * sizeScale:	unit to show the size in [B, K, M, G, T], null for human readable (-h, --si)
+	 * sizePower:	1024, or 1000 for --si
+	 * Bytes are shown as integers, the other units with one decimal rounded half-up: "12", "1.5K", "3.0M"
+	 */
+	public static String size(long size, String sizeScale, int sizePower)
+	{
+		int target = UNITS.length - 1;
+		if(sizeScale != null)
+			for(int i=0; i<UNITS.length; i++)
+				if(sizeScale.length() == 1 && sizeScale.charAt(0) == UNITS[i]) { target = i; break; }
+
+		//Divisor of the chosen unit: human readable stops at the first unit the size fits in
+		int order = 0;
+		long divisor = 1;
+		while(order < target && (sizeScale != null || size >= divisor * sizePower))
+		{
+			divisor *= sizePower;
+			order++;
+		}
+
+		if(order == 0) return Long.toString(size);
+
+		//Tenths of the unit, rounded half-up (without overflow for huge sizes)
+		long tenths = size <= Long.MAX_VALUE / 10
+				? (size * 10 + divisor / 2) / divisor
+				: Math.round(size / (double) divisor * 10);
+
+		StringBuilder text = new StringBuilder(24);
+		return text.append(tenths / 10).append('.').append((char) ('0' + tenths % 10)).append(UNITS[order]).toString();
+	}
+	/******************************************************************************************************************************/
+
+
+	/*****************************************************PERMISSIONS*************************************************************/
+	/*
+	 * st_mode --> "drwxr-xr-x"
+	 */
+	public static String permissions(int mode)
+	{
+		int index = typeIndex(mode) << 12 | (mode & 07777);
+		String text = PERMISSIONS[index];
+		if(text == null)
+		{
+			text = render(mode).intern();
+			PERMISSIONS[index] = text;
+		}
+		return text;
+	}
+
+	/*
+	 * No POSIX mode: the type and what the current user may do, group and other are unknown ('.')
+	 */
+	public static String basicPermissions(boolean directory, boolean read, boolean write, boolean execute)
+	{
+		int index = (directory ? 8 : 0) | (read ? 4 : 0) | (write ? 2 : 0) | (execute ? 1 : 0);
+		String text = BASIC_PERMISSIONS[index];
+		if(text == null)
+		{
+			char[] perm = new char[10];
+			perm[0] = directory ? 'd' : '-';
+			for(int i=0; i<3; i++)
+			{
+				perm[1 + 3*i] = read ? (i == 0 ? 'r' : '.') : '-';
+				perm[2 + 3*i] = write ? (i == 0 ? 'w' : '.') : '-';
+				perm[3 + 3*i] = execute ? (i == 0 ? 'x' : '.') : '-';
+			}
+			text = new String(perm).intern();
+			BASIC_PERMISSIONS[index] = text;
+		}
+		return text;
+	}
+
+	private static int typeIndex(int mode)
+	{
+		switch (mode & S_IFMT)
+		{
+			case S_IFDIR:  return 1;
+			case S_IFLNK:  return 2;
+			case S_IFCHR:  return 3;
+			case S_IFBLK:  return 4;
+			case S_IFIFO:  return 5;
+			case S_IFSOCK: return 6;
+			default:       return 0;
+		}
+	}
+
+	private static String render(int mode)
+	{
+		char[] perm = new char[10];
+		perm[0] = "-dlcbps".charAt(typeIndex(mode));
+		perm[1] = (mode & 0400) != 0 ? 'r' : '-';
+		perm[2] = (mode & 0200) != 0 ? 'w' : '-';
+		perm[3] = execChar(mode & 0100, mode & 04000, 's');
+		perm[4] = (mode & 0040) != 0 ? 'r' : '-';
+		perm[5] = (mode & 0020) != 0 ? 'w' : '-';
+		perm[6] = execChar(mode & 0010, mode & 02000, 's');
+		perm[7] = (mode & 0004) != 0 ? 'r' : '-';
+		perm[8] = (mode & 0002) != 0 ? 'w' : '-';
+		perm[9] = execChar(mode & 0001, mode & 01000, 't');
+		return new String(perm);
+	}
+
+	private static char execChar(int exec, int special, char specialChar)
+	{
+		if(special == 0) return exec != 0 ? 'x' : '-';
+		return exec != 0 ? specialChar : Character.toUpperCase(specialChar);
+	}
+	/******************************************************************************************************************************/
+}
@@ -0,0 +1,14 @@
+package unix.util;
+
+/*
+ * FileAttribute
+ * Groups of attributes a FileInfo can be asked to read up-front, the name is always known without any system call
+ */
+public enum FileAttribute 
+{
+	//size, times, mode, uid/gid, inode, nlink, file-type
+	STAT,
+	
+	//owner and group names
+	OWNER
+}
@@ -4,56 +4,212 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.GroupPrincipal;
 import java.nio.file.attribute.UserPrincipal;
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Date;
-import java.util.TimeZone;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 
 public class FileInfo
 {
-	private File file;
+	//Attribute list of the "unix" view, read in one system call (owner and group names come from the uid/gid cache)
+	private static final String UNIX_STAT_ATTRIBUTES = "unix:mode,dev,ino,nlink,uid,gid,size,lastModifiedTime,lastAccessTime,ctime";
+	
+	//File-type bits of st_mode
+	private static final int S_IFMT   = 0170000;
+	private static final int S_IFLNK  = 0120000;
+	private static final int S_IFDIR  = 0040000;
+	
+	private Path path;
+	private String fileName;
 	private String name;
 	private String absolutePath;
-	private String size;
-	private Date lastModified;
-	private Date lastAccessed;
+	private long size;
+	//Epoch milliseconds
+	private long lastModified;
+	private long lastAccessed;
+	private long lastChanged;
 	private String owner;
 	private String group;
 	private String filePermissions;
 	
+	//POSIX attributes (stay 0 when the file system doesn't offer the unix view)
+	private int mode;
+	private int uid;
+	private int gid;
+	private long device;
+	private long inode;
+	private int nlink;
+	private boolean directory;
+	//Link itself (never set when links are followed), and whether the file was found at all
+	private boolean symbolicLink;
+	private boolean missing;
+	//Target of the link, read once on first use
+	private volatile Path linkTarget;
+	
+	//Lazy loading state: attributes are read on first use unless requested up-front
+	private final boolean followLinks;
+	private volatile boolean statLoaded;
+	private volatile boolean ownerLoaded;
+	
 	public FileInfo(File file) {
+		this(file, false);
+	}
+	
+	/*
+	 * followLinks is used for the implied "." and ".." entries, which describe the directory itself
+	 */
+	public FileInfo(File file, boolean followLinks) {
+		this(file, followLinks, EnumSet.allOf(FileAttribute.class));
+	}
+	
+	/*
+	 * Only the attributes in demand are read now, the others are read on first use (an empty demand costs no system call)
+	 */
+	public FileInfo(File file, boolean followLinks, Set<FileAttribute> demand) {
+		this(file.toPath(), followLinks, demand);
+	}
+	
+	/*
+	 * Path based entry, works with any FileSystemProvider (not only the default one)
+	 */
+	public FileInfo(Path path, boolean followLinks, Set<FileAttribute> demand) {
 		
-		this.file = file;
+		this.path = path;
 		
-		this.name = file.getName();
+		this.fileName = path.getFileName()==null ? "" : path.getFileName().toString();
+		this.name = this.fileName;
 		
-		this.absolutePath = file.getAbsolutePath();
-		this.size = Long.toString(file.length());
-		this.lastModified = new Date(file.lastModified());
-
-		Path path = Paths.get(this.absolutePath);
+		this.absolutePath = path.toAbsolutePath().toString();
+		
+		this.followLinks = followLinks;
+		
+		this.load(demand);
+	}
+	
+	/*
+	 * Followed link [-L]: the name and path of link, with the attributes already read for its target (no system call)
+	 */
+	public FileInfo(FileInfo link, FileInfo target) {
+		
+		this.path = link.path;
+		this.fileName = link.fileName;
+		this.name = link.name;
+		this.absolutePath = link.absolutePath;
+		this.followLinks = true;
+		
+		synchronized(target)
+		{
+			this.size = target.size;
+			this.lastModified = target.lastModified;
+			this.lastAccessed = target.lastAccessed;
+			this.lastChanged = target.lastChanged;
+			this.owner = target.owner;
+			this.group = target.group;
+			this.filePermissions = target.filePermissions;
+			this.mode = target.mode;
+			this.uid = target.uid;
+			this.gid = target.gid;
+			this.device = target.device;
+			this.inode = target.inode;
+			this.nlink = target.nlink;
+			this.directory = target.directory;
+			this.symbolicLink = target.symbolicLink;
+			this.missing = target.missing;
+			this.statLoaded = target.statLoaded;
+			this.ownerLoaded = target.ownerLoaded;
+		}
+	}
+	
+	/*
+	 * Read the missing attributes of demand: STAT is ONE bulk read, OWNER resolves the uid/gid of STAT through the PrincipalCache
+	 */
+	public synchronized void load(Set<FileAttribute> demand)
+	{
+		boolean owner = demand.contains(FileAttribute.OWNER) && !this.ownerLoaded;
+		boolean stat = (demand.contains(FileAttribute.STAT) || owner) && !this.statLoaded;
+		if(!stat && !owner) return;
+		
+		LinkOption[] linkOptions = this.followLinks ? new LinkOption[0] : new LinkOption[] {LinkOption.NOFOLLOW_LINKS};
+		
+		try {
+			if(stat) this.fromUnixAttributes(Files.readAttributes(this.path, UNIX_STAT_ATTRIBUTES, linkOptions));
+			//The fallbacks below fill the owner too
+			if(owner && !this.ownerLoaded) this.fromUnixOwner(linkOptions);
+		} 
+		catch (UnsupportedOperationException | IllegalArgumentException e) {
+			//"unix" view is not available (DOS-environment), fall back to basic attributes
+			this.fromBasicAttributes(this.path, linkOptions);
+		}
+		catch (IOException e) {
+			//File vanished or can't be read, keep an empty entry
+			this.fromMissingFile();
+		}
+	}
+	
+	private void ensureStat()
+	{
+		if(!this.statLoaded) this.load(EnumSet.of(FileAttribute.STAT));
+	}
+	
+	private void ensureOwner()
+	{
+		if(!this.ownerLoaded) this.load(EnumSet.of(FileAttribute.OWNER));
+	}
+	
+	private void fromUnixAttributes(Map<String, Object> attrs)
+	{
+		this.size = (Long) attrs.get("size");
+		this.lastModified = ((FileTime) attrs.get("lastModifiedTime")).toMillis();
+		this.lastAccessed = ((FileTime) attrs.get("lastAccessTime")).toMillis();
+		this.lastChanged = ((FileTime) attrs.get("ctime")).toMillis();
+		
+		this.mode = (Integer) attrs.get("mode");
+		this.uid = (Integer) attrs.get("uid");
+		this.gid = (Integer) attrs.get("gid");
+		this.device = (Long) attrs.get("dev");
+		this.inode = (Long) attrs.get("ino");
+		this.nlink = (Integer) attrs.get("nlink");
+		this.directory = (this.mode & S_IFMT) == S_IFDIR;
+		this.symbolicLink = (this.mode & S_IFMT) == S_IFLNK;
+		
+		this.filePermissions = FieldFormat.permissions(this.mode);
+		this.statLoaded = true;
+	}
+	
+	private void fromUnixOwner(LinkOption[] linkOptions)
+	{
+		//Names are only looked up for ids the cache hasn't seen yet
+		PrincipalCache principals = PrincipalCache.getDefault();
+		this.owner = principals.user(this.uid, () -> ((UserPrincipal) Files.getAttribute(this.path, "unix:owner", linkOptions)).getName());
+		this.group = principals.group(this.gid, () -> ((GroupPrincipal) Files.getAttribute(this.path, "unix:group", linkOptions)).getName());
+		this.ownerLoaded = true;
+	}
+	
+	private void fromBasicAttributes(Path path, LinkOption[] linkOptions)
+	{
 		BasicFileAttributes attrs=null;
 		try {
-			attrs = Files.readAttributes(path, BasicFileAttributes.class);
-			this.lastAccessed = new Date(attrs.lastAccessTime().toMillis());
-		} catch (IOException e1) { this.lastAccessed=this.lastModified;}
-
+			attrs = Files.readAttributes(path, BasicFileAttributes.class, linkOptions);
+		} catch (IOException e1) { this.fromMissingFile(); return; }
+		
+		this.size = attrs.size();
+		this.lastModified = attrs.lastModifiedTime().toMillis();
+		this.lastAccessed = attrs.lastAccessTime().toMillis();
+		//No status-change time outside of POSIX, creation time is the closest
+		this.lastChanged = attrs.creationTime().toMillis();
+		this.directory = attrs.isDirectory();
+		this.symbolicLink = attrs.isSymbolicLink();
 		
 		String username="SYSTEM";
 		try {
-		    UserPrincipal owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS);
-		    try { 
-		    	username = owner.getName().split("\\\\")[1];
-		    } catch (Exception e) {
-		    	username = owner.getName();
-		    }
+		    UserPrincipal owner = Files.getOwner(path, linkOptions);
+		    String[] domainUser = owner.getName().split("\\\\");
+		    username = domainUser[domainUser.length - 1];
 		} catch (IOException e) {}
 		this.owner = username;
 		
@@ -61,22 +217,26 @@ public class FileInfo
 		if(this.owner.equals("SYSTEM")) this.group = this.owner;
 		else this.group = "None";
 		
-		final boolean r = file.canRead();
-		final boolean w = file.canWrite();
-		final boolean x = file.canExecute();
-		this.filePermissions = (file.isDirectory() ? "d" : "-") +
-				//owner
-				(r ? 'r' : '-') +
-				(w ? 'w' : '-') +
-				(x ? 'x' : '-') +
-				//group
-				(r ? '.' : '-') +
-				(w ? '.' : '-') +
-				(x ? '.' : '-') +
-				//other
-				(r ? '.' : '-') +
-				(w ? '.' : '-') +
-				(x ? '.' : '-');
+		final boolean r = Files.isReadable(path);
+		final boolean w = Files.isWritable(path);
+		final boolean x = Files.isExecutable(path);
+		this.filePermissions = FieldFormat.basicPermissions(this.directory, r, w, x);
+		this.statLoaded = true;
+		this.ownerLoaded = true;
+	}
+	
+	private void fromMissingFile()
+	{
+		this.size = 0;
+		this.lastModified = 0;
+		this.lastAccessed = 0;
+		this.lastChanged = 0;
+		this.owner = "SYSTEM";
+		this.group = "SYSTEM";
+		this.filePermissions = "??????????";
+		this.missing = true;
+		this.statLoaded = true;
+		this.ownerLoaded = true;
 	}
 	
 	public String getName()
@@ -86,17 +246,17 @@ public class FileInfo
 	public String getFormatedName(String quotingStyle) 
 	{
 		//For files name with a space use single-quotes
-		if( (quotingStyle.equals("shell") || quotingStyle.equals("shell-escape")) && file.getName().indexOf(" ") > -1) 
-			return "'"+file.getName()+"'";
+		if( (quotingStyle.equals("shell") || quotingStyle.equals("shell-escape")) && this.fileName.indexOf(" ") > -1) 
+			return "'"+this.fileName+"'";
 
 		if(quotingStyle.equals("locale") || quotingStyle.equals("shell-always") || quotingStyle.equals("shell-escape-always")) 
-			return "'"+file.getName()+"'";
+			return "'"+this.fileName+"'";
 		
 		if(quotingStyle.equals("clocale") || quotingStyle.equals("c")) 
-			return '"'+file.getName()+'"';
+			return '"'+this.fileName+'"';
 		
 		if(quotingStyle.equals("escape"))
-			return file.getName().replace(" ", "\\ ");
+			return this.fileName.replace(" ", "\\ ");
 		
 		return name;
 	}
@@ -112,82 +272,118 @@ public class FileInfo
 	public void setAbsolutePath(String absolutePath) {
 		this.absolutePath = absolutePath;
 	}
+	
+	public Path getPath() {
+		return path;
+	}
 
 	public String getSize() {
-		if (file.isDirectory()) return "0";
-		return this.size;
+		this.ensureStat();
+		if (this.directory) return "0";
+		return Long.toString(this.size);
 	}
 	
 	public String getFormatedSize(String sizeScale, int sizePower) {
+		this.ensureStat();
 		//Directories show 0 in size
-		if (file.isDirectory()) return "0";
+		if (this.directory) return "0";
 		
 		//Format size to Human Readable format
-		ArrayList<String> sizes = new ArrayList<String>(Arrays.asList(new String [] {"B", "K", "M", "G", "T"}));
-		
-		double len = Double.valueOf(this.size);
-		int order = 0;
-		while ( (len >= sizePower || sizeScale!=null) 
-				&& order < sizes.size()- 1 
-				&& ( sizeScale==null || (sizeScale!=null && !sizeScale.equals(sizes.get(order)) ) ) )
-		{
-			//if(sizeScale.equals(sizes[order])) break;
-		    len = len/sizePower;
-		    order++;
-		}
-		if(sizes.get(order).equals("B")) return String.format("%.0f", len);
-		else return String.format("%.1f%s", len, sizes.get(order));
-}
+		return FieldFormat.size(this.size, sizeScale, sizePower);
+	}
+
+	/*
+	 * Size as a number, for sorting (directories count as 0 like getSize)
+	 */
+	public long getLength() {
+		this.ensureStat();
+		if (this.directory) return 0;
+		return this.size;
+	}
 
 	public void setSize(String size) {
-		this.size = size;
+		this.ensureStat();
+		this.size = Long.parseLong(size);
 	}
 
 	public String getLastModified() {
-		return new SimpleDateFormat("MMM dd HH:mm").format(this.lastModified);
+		this.ensureStat();
+		return FieldFormat.time(this.lastModified);
 	}
 	public String getLastModifiedISO() throws ParseException {
-		DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm'Z'");
-		df.setTimeZone(TimeZone.getTimeZone("UTC"));
-		
-		return df.format(this.lastModified);
+		this.ensureStat();
+		return FieldFormat.isoTime(this.lastModified);
+	}
+
+	public long getLastModifiedMillis() {
+		this.ensureStat();
+		return this.lastModified;
 	}
 
 	public void setLastModified(Date lastModified) {
-		this.lastModified = lastModified;
+		this.ensureStat();
+		this.lastModified = lastModified.getTime();
 	}
 	
 	
 	public String getLastAccessed() {
-		return new SimpleDateFormat("MMM dd HH:mm").format(lastAccessed);
+		this.ensureStat();
+		return FieldFormat.time(this.lastAccessed);
+	}
+
+	public long getLastAccessedMillis() {
+		this.ensureStat();
+		return this.lastAccessed;
 	}
 
 	public void setLastAccessed(Date lastAccessed) {
-		this.lastAccessed = lastAccessed;
+		this.ensureStat();
+		this.lastAccessed = lastAccessed.getTime();
+	}
+	
+	public String getLastChanged() {
+		this.ensureStat();
+		return FieldFormat.time(this.lastChanged);
+	}
+
+	public long getLastChangedMillis() {
+		this.ensureStat();
+		return this.lastChanged;
+	}
+
+	public void setLastChanged(Date lastChanged) {
+		this.ensureStat();
+		this.lastChanged = lastChanged.getTime();
 	}
 
 	public String getOwner() {
+		this.ensureOwner();
 		return owner;
 	}
 
 	public void setOwner(String owner) {
+		this.ensureOwner();
 		this.owner = owner;
 	}
 
 	
 	public String getGroup() {
+		this.ensureOwner();
 		return group;
 	}
 
 	public void setGroup(String group) {
+		this.ensureOwner();
 		this.group = group;
 	}
 
 	public String getFilePermissions() {
+		this.ensureStat();
 		return filePermissions;
 	}
 
 	public void setFilePermissions(String filePermissions) {
+		this.ensureStat();
 		this.filePermissions = filePermissions;
 	}
 
@@ -197,12 +393,12 @@ public class FileInfo
 		{
 			//Symbolic Link [shortcuts]
 			if(indicatorStyle.equals("classify") || indicatorStyle.equals("file-type"))
-				if( !file.getAbsolutePath().equals(file.toPath().toRealPath().toString()) ) return "@";
+				if(this.isSymLink()) return "@";
 			
 
 			//Directories
 			if(indicatorStyle.equals("classify") || indicatorStyle.equals("file-type") || indicatorStyle.equals("slash"))
-				if(file.isDirectory()) return "/";
+				if(this.isDirectory()) return "/";
 			
 			//Executables
 			if(!indicatorStyle.equals("none") && !indicatorStyle.equals("file-type") && !indicatorStyle.equals("slash"))
@@ -218,26 +414,48 @@ public class FileInfo
 		 */
 	}
 	
+	/*
+	 * From the (not followed) attribute snapshot, no path resolution
+	 */
 	public Boolean isSymLink() throws IOException
+	{
+		this.ensureStat();
+		return this.symbolicLink;
+	}
+	
+	/*
+	 * Target of the link as it's written in the link (relative targets are relative to the link's directory), null for other files
+	 */
+	public Path getSymLinkTarget() throws IOException
+	{
+		if(!this.isSymLink()) return null;
+		if(this.linkTarget == null) this.linkTarget = Files.readSymbolicLink(this.path);
+		return this.linkTarget;
+	}
+	
+	public String getSymLink() throws IOException
 	{
 		try
 		{
-			if(!file.getAbsolutePath().equals(file.toPath().toRealPath().toString())) return true;
+			Path target = this.getSymLinkTarget();
+			return target == null ? "" : target.toString();
 		}
-		catch(Exception e) {return false;}
-		
-		return false;
+		catch(IOException e) {return "";}
 	}
 	
-	public String getSymLink() throws IOException
+	/*
+	 * False when the attributes couldn't be read (vanished file, dangling link that is followed)
+	 */
+	public boolean exists()
 	{
-		if(this.isSymLink()) return file.toPath().toRealPath().toString();
-		return "";
+		this.ensureStat();
+		return !this.missing;
 	}
 	
 	public String getExtension()
 	{
-		if(this.file.isDirectory()) return "";
+		this.ensureStat();
+		if(this.directory) return "";
 		else
 		{
 			String[] name = this.name.split("\\.");
@@ -251,71 +469,43 @@ public class FileInfo
 	
 	public Boolean isDirectory()
 	{
-		return this.file.isDirectory();
+		this.ensureStat();
+		return this.directory;
 	}
-
 	
-	public static Comparator<FileInfo> fileModificationTimeComparator = new Comparator<FileInfo>() 
-	{
-
-		public int compare(FileInfo f1, FileInfo f2) 
-		{
-		   Date fileDate1 = null;
-		   Date fileDate2 = null;
-		   try {
-				fileDate1 = new SimpleDateFormat("MMM dd HH:mm").parse(f1.getLastModified());
-				fileDate2 = new SimpleDateFormat("MMM dd HH:mm").parse(f2.getLastModified());
-		   } catch (ParseException e) {e.printStackTrace();}
-		   
-
-		   return fileDate2.compareTo(fileDate1);
-	    }
-	};
+	public int getMode() {
+		this.ensureStat();
+		return mode;
+	}
 	
-	public static Comparator<FileInfo> fileAccessTimeComparator = new Comparator<FileInfo>() 
-	{
-
-		public int compare(FileInfo f1, FileInfo f2) 
-		{
-		   Date fileDate1 = null;
-		   Date fileDate2 = null;
-		   try {
-				fileDate1 = new SimpleDateFormat("MMM dd HH:mm").parse(f1.getLastAccessed());
-				fileDate2 = new SimpleDateFormat("MMM dd HH:mm").parse(f2.getLastAccessed());
-		   } catch (ParseException e) {e.printStackTrace();}
-		   
-
-		   return fileDate2.compareTo(fileDate1);
-	    }
-	};
+	public int getUid() {
+		this.ensureStat();
+		return uid;
+	}
 	
-	public static Comparator<FileInfo> fileSizeComparator = new Comparator<FileInfo>() 
-	{
-
-		public int compare(FileInfo f1, FileInfo f2) 
-		{
-		   int fileSize1 = Integer.parseInt(f1.getSize());
-		   int fileSize2 = Integer.parseInt(f2.getSize());
-		   
-
-		   return fileSize2-fileSize1;
-	    }
-	};
+	public int getGid() {
+		this.ensureStat();
+		return gid;
+	}
 	
-	public static Comparator<FileInfo> fileDirectoryComparator = new Comparator<FileInfo>() 
-	{
-
-		public int compare(FileInfo f1, FileInfo f2) 
-		{
-			return f2.isDirectory().compareTo(f1.isDirectory());
-	    }
-	};
+	public long getDevice() {
+		this.ensureStat();
+		return device;
+	}
 	
-	public static Comparator<FileInfo> fileExtensionComparator = new Comparator<FileInfo>() 
-	{
-		public int compare(FileInfo f1, FileInfo f2) 
-		{
-		   return f1.getExtension().compareTo(f2.getExtension());
-	    }
-	};
+	public long getInode() {
+		this.ensureStat();
+		return inode;
+	}
+	
+	public int getNlink() {
+		this.ensureStat();
+		return nlink;
+	}
+	
+	// st_size as read, for every type (directories too, unlike getLength)
+	public long getStatSize() {
+		this.ensureStat();
+		return size;
+	}
 }
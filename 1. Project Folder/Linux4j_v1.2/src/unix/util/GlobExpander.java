@@ -0,0 +1,349 @@
+package unix.util;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/*
+ * GlobExpander
+ * Shell-like expansion of glob arguments: * ? [classes] {braces} and ** (any number of directories).
+ * Every pattern is compiled into segments (one per path level), then ALL the patterns are matched in ONE traversal:
+ * 		- a directory is only opened if a pattern can still match below it (logs/2026-*\/**\/*.gz never opens
+ * 		  anything outside of logs/2026-*)
+ * 		- literal segments are checked directly, without listing their directory
+ * 		- several patterns reaching the same directory share its read
+ * Like the shell, wildcards don't match names starting with '.' unless the segment does, and ** doesn't follow links.
+ */
+public class GlobExpander
+{
+	private GlobExpander() {}
+
+	/*
+	 * true if argument has to be expanded
+	 */
+	public static boolean isGlob(String argument)
+	{
+		for(int i=0; i<argument.length(); i++)
+		{
+			char c = argument.charAt(i);
+			if(c == '*' || c == '?' || c == '[' || c == '{') return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Paths matched by patterns, sorted and without duplicates:
+	 * relative to base for relative patterns, absolute for absolute ones
+	 */
+	public static List<String> expand(String base, List<String> patterns)
+	{
+		return expand(base, patterns, null);
+	}
+
+	/*
+	 * unmatched: receives the patterns without any match (null if not needed)
+	 */
+	public static List<String> expand(String base, List<String> patterns, List<String> unmatched)
+	{
+		boolean[] matched = new boolean[patterns.size()];
+
+		//One traversal per starting directory, shared by all its patterns
+		Map<String, List<State>> roots = new LinkedHashMap<String, List<State>>();
+		for(int p=0; p<patterns.size(); p++)
+		{
+			for(String alternative: expandBraces(patterns.get(p)))
+			{
+				boolean absolute = alternative.startsWith("/");
+				Segment[] segments = compile(alternative);
+				if(segments.length == 0) continue;
+				String root = absolute ? "/" : "";
+				List<State> states = roots.get(root);
+				if(states == null) roots.put(root, states = new ArrayList<State>());
+				states.add(new State(segments, 0, p));
+			}
+		}
+
+		Matches matches = new Matches(matched);
+		for(Map.Entry<String, List<State>> root: roots.entrySet())
+		{
+			Path directory = root.getKey().isEmpty() ? Paths.get(base) : Paths.get(root.getKey());
+			walk(directory, root.getKey(), root.getValue(), matches);
+		}
+
+		if(unmatched != null)
+			for(int p=0; p<patterns.size(); p++) if(!matched[p]) unmatched.add(patterns.get(p));
+		return new ArrayList<String>(matches.paths);
+	}
+
+	/*
+	 * states: what is left to match below directory, prefix: displayed path of directory ("" or ending with '/')
+	 */
+	private static void walk(Path directory, String prefix, List<State> states, Matches matches)
+	{
+		//** also matches zero directories: its next segment is tried here too
+		List<State> current = new ArrayList<State>();
+		for(State state: states) closure(state, current, directory, prefix, matches);
+		if(current.isEmpty()) return;
+
+		Map<String, List<State>> children = new LinkedHashMap<String, List<State>>();
+
+		boolean literalOnly = true;
+		for(State state: current) literalOnly &= state.segment().literal;
+
+		if(literalOnly)
+		{
+			//Names are known: no need to read the directory
+			for(State state: current)
+			{
+				String name = state.segment().text;
+				Path child = directory.resolve(name);
+				if(!Files.exists(child, LinkOption.NOFOLLOW_LINKS)) continue;
+				advance(state, name, child, prefix, children, matches);
+			}
+		}
+		else
+		{
+			try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory))
+			{
+				for(Path child: stream)
+				{
+					String name = child.getFileName().toString();
+					for(State state: current)
+					{
+						Segment segment = state.segment();
+						if(segment.globstar)
+						{
+							if(name.charAt(0) == '.') continue;
+							//Trailing ** [logs/**]: every entry below matches, files too
+							if(state.index + 1 == state.segments.length) matches.add(state, prefix + name);
+							//Descend into every (visible, real) directory and keep trying
+							if(Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) add(children, name, state);
+						}
+						else if(segment.matches(name)) advance(state, name, child, prefix, children, matches);
+					}
+				}
+			}
+			catch(IOException | RuntimeException e) {} //Unreadable directory: nothing below it matches
+		}
+
+		for(Map.Entry<String, List<State>> child: children.entrySet())
+			walk(directory.resolve(child.getKey()), prefix + child.getKey() + "/", child.getValue(), matches);
+	}
+
+	private static void closure(State state, List<State> current, Path directory, String prefix, Matches matches)
+	{
+		if(state.index == state.segments.length)
+		{
+			// a/** matches a itself
+			if(!prefix.isEmpty()) matches.add(state, prefix.length() > 1 ? prefix.substring(0, prefix.length() - 1) : prefix);
+			return;
+		}
+		if(current.contains(state)) return;
+		current.add(state);
+		if(state.segment().globstar) closure(state.next(), current, directory, prefix, matches);
+	}
+
+	/*
+	 * name matched the segment of state: a full match, or a directory to continue in
+	 */
+	private static void advance(State state, String name, Path child, String prefix, Map<String, List<State>> children, Matches matches)
+	{
+		State next = state.next();
+		if(next.index == next.segments.length) matches.add(state, prefix + name);
+		//A trailing ** can still match below, any other segment needs a directory
+		else if(Files.isDirectory(child)) add(children, name, next);
+	}
+
+	private static void add(Map<String, List<State>> children, String name, State state)
+	{
+		List<State> states = children.get(name);
+		if(states == null) children.put(name, states = new ArrayList<State>());
+		if(!states.contains(state)) states.add(state);
+	}
+
+	/*
+	 * "a/{b,c}/*.{gz,xz}" --> a/b/*.gz, a/b/*.xz, a/c/*.gz, a/c/*.xz
+	 */
+	static List<String> expandBraces(String pattern)
+	{
+		List<String> expanded = new ArrayList<String>();
+		int open = -1, depth = 0;
+		List<Integer> commas = new ArrayList<Integer>();
+		for(int i=0; i<pattern.length(); i++)
+		{
+			char c = pattern.charAt(i);
+			if(c == '{')
+			{
+				if(depth++ == 0) { open = i; commas.clear(); }
+			}
+			else if(c == ',' && depth == 1) commas.add(i);
+			else if(c == '}' && depth > 0 && --depth == 0)
+			{
+				//{x} without alternatives stays as it is
+				if(commas.isEmpty()) continue;
+
+				String head = pattern.substring(0, open), tail = pattern.substring(i + 1);
+				int start = open + 1;
+				commas.add(i);
+				for(int comma: commas)
+				{
+					expanded.addAll(expandBraces(head + pattern.substring(start, comma) + tail));
+					start = comma + 1;
+				}
+				return expanded;
+			}
+		}
+		expanded.add(pattern);
+		return expanded;
+	}
+
+	private static Segment[] compile(String pattern)
+	{
+		ArrayList<Segment> segments = new ArrayList<Segment>();
+		for(String text: pattern.split("/"))
+		{
+			if(text.isEmpty()) continue;
+			// a/**/**/b is a/**/b
+			if(text.equals("**") && !segments.isEmpty() && segments.get(segments.size() - 1).globstar) continue;
+			segments.add(new Segment(text));
+		}
+		return segments.toArray(new Segment[segments.size()]);
+	}
+
+
+
+	/*
+	 * One level of a pattern
+	 */
+	private static class Segment
+	{
+		private final String text;
+		private final boolean literal;
+		private final boolean globstar;
+		private final PathMatcher matcher;
+
+		Segment(String text)
+		{
+			this.text = text;
+			this.globstar = text.equals("**");
+			this.literal = !isGlob(text);
+			this.matcher = this.literal || this.globstar ? null : FileSystems.getDefault().getPathMatcher("glob:" + text);
+		}
+
+		boolean matches(String name)
+		{
+			if(this.literal) return this.text.equals(name);
+			//Hidden names only match a segment that starts with '.'
+			if(name.charAt(0) == '.' && this.text.charAt(0) != '.') return false;
+			return this.matcher.matches(Paths.get(name));
+		}
+	}
+
+	/*
+	 * A pattern (alternative of the pattern number origin) with its next segment to match
+	 */
+	private static class State
+	{
+		private final Segment[] segments;
+		private final int index;
+		private final int origin;
+
+		State(Segment[] segments, int index, int origin)
+		{
+			this.segments = segments;
+			this.index = index;
+			this.origin = origin;
+		}
+
+		Segment segment()
+		{
+			return this.segments[this.index];
+		}
+
+		State next()
+		{
+			return new State(this.segments, this.index + 1, this.origin);
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			return other instanceof State && ((State) other).segments == this.segments && ((State) other).index == this.index;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return System.identityHashCode(this.segments) * 31 + this.index;
+		}
+	}
+
+	/*
+	 * Sorted paths, and which pattern matched something
+	 */
+	private static class Matches
+	{
+		private final TreeSet<String> paths = new TreeSet<String>();
+		private final boolean[] matched;
+
+		Matches(boolean[] matched)
+		{
+			this.matched = matched;
+		}
+
+		void add(State state, String path)
+		{
+			this.matched[state.origin] = true;
+			this.paths.add(path);
+		}
+	}
+
+	/*
+	 * Glob matched against a whole string [locate, find -path]: * any characters (/ included), ? one character,
+	 * [!...] and [...] classes, {a,b} alternatives, \ escapes
+	 */
+	public static Pattern regex(String glob, boolean ignoreCase)
+	{
+		StringBuilder regex = new StringBuilder();
+		int braces = 0;
+		for(int i=0; i<glob.length(); i++)
+		{
+			char c = glob.charAt(i);
+			switch(c)
+			{
+				case '*':	regex.append(".*"); break;
+				case '?':	regex.append('.'); break;
+				case '{':	regex.append("(?:"); braces++; break;
+				case '}':	if(braces > 0) {regex.append(')'); braces--;} else regex.append("\\}"); break;
+				case ',':	regex.append(braces > 0 ? "|" : ","); break;
+				case '\\':	if(i + 1 < glob.length()) regex.append(Pattern.quote(String.valueOf(glob.charAt(++i)))); break;
+				case '[':
+					boolean negated = i + 1 < glob.length() && (glob.charAt(i + 1) == '!' || glob.charAt(i + 1) == '^');
+					int end = glob.indexOf(']', i + (negated ? 3 : 2));
+					if(end < 0) {regex.append("\\["); break;}
+					String members = glob.substring(i + 1, end);
+					regex.append('[');
+					if(negated) {regex.append('^'); members = members.substring(1);}
+					for(char member: members.toCharArray()) regex.append(member == '-' ? "-" : Character.isLetterOrDigit(member) ? String.valueOf(member) : "\\" + member);
+					regex.append(']');
+					i = end;
+					break;
+				default:
+					regex.append(Character.isLetterOrDigit(c) ? String.valueOf(c) : Pattern.quote(String.valueOf(c)));
+			}
+		}
+		while(braces-- > 0) regex.append(')');
+		return Pattern.compile(regex.toString(), ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL : Pattern.DOTALL);
+	}
+}
@@ -0,0 +1,118 @@
+package unix.util;
+
+/*
+ * InodeSet
+ * Files already counted [du: hard links], as (device, inode) pairs of primitive longs: no boxing, no entry objects.
+ * Thread-safe: the pairs are spread over 64 stripes by hash, each stripe is an open-addressing table with its own lock
+ * (the walkers of different subtrees rarely wait for each other).
+ */
+public final class InodeSet
+{
+	private static final int STRIPE_SHIFT = 6;
+	private static final int STRIPES = 1 << STRIPE_SHIFT;
+
+	private final Stripe[] stripes;
+
+	public InodeSet()
+	{
+		super();
+		this.stripes = new Stripe[STRIPES];
+		for(int i=0; i<STRIPES; i++) this.stripes[i] = new Stripe();
+	}
+
+	/*
+	 * true the first time the file is added, false if it was already counted
+	 */
+	public boolean add(long device, long inode)
+	{
+		long hash = mix(device, inode);
+		//Stripe from the high bits, slot from the low bits
+		Stripe stripe = this.stripes[(int) (hash >>> (64 - STRIPE_SHIFT))];
+		synchronized(stripe)
+		{
+			return stripe.add(device, inode, (int) hash);
+		}
+	}
+
+	public boolean contains(long device, long inode)
+	{
+		long hash = mix(device, inode);
+		Stripe stripe = this.stripes[(int) (hash >>> (64 - STRIPE_SHIFT))];
+		synchronized(stripe)
+		{
+			return stripe.contains(device, inode, (int) hash);
+		}
+	}
+
+	public long size()
+	{
+		long size = 0;
+		for(Stripe stripe: this.stripes)
+		{
+			synchronized(stripe) { size += stripe.size; }
+		}
+		return size;
+	}
+
+	private static long mix(long device, long inode)
+	{
+		long hash = inode * 0x9E3779B97F4A7C15L ^ device;
+		hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+		hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return hash ^ (hash >>> 33);
+	}
+
+	/*
+	 * Linear probing over parallel arrays, grown at 3/4 load
+	 */
+	private static final class Stripe
+	{
+		private long[] devices = new long[16];
+		private long[] inodes = new long[16];
+		private boolean[] used = new boolean[16];
+		private int size;
+
+		boolean contains(long device, long inode, int hash)
+		{
+			int mask = this.used.length - 1;
+			for(int slot = hash & mask; this.used[slot]; slot = (slot + 1) & mask)
+				if(this.inodes[slot] == inode && this.devices[slot] == device) return true;
+			return false;
+		}
+
+		boolean add(long device, long inode, int hash)
+		{
+			int mask = this.used.length - 1;
+			int slot = hash & mask;
+			while(this.used[slot])
+			{
+				if(this.inodes[slot] == inode && this.devices[slot] == device) return false;
+				slot = (slot + 1) & mask;
+			}
+			this.used[slot] = true;
+			this.devices[slot] = device;
+			this.inodes[slot] = inode;
+			if(++this.size * 4 > this.used.length * 3) this.grow();
+			return true;
+		}
+
+		private void grow()
+		{
+			long[] devices = this.devices, inodes = this.inodes;
+			boolean[] used = this.used;
+			this.devices = new long[used.length * 2];
+			this.inodes = new long[used.length * 2];
+			this.used = new boolean[used.length * 2];
+			int mask = this.used.length - 1;
+			for(int i=0; i<used.length; i++)
+			{
+				if(!used[i]) continue;
+				int slot = (int) mix(devices[i], inodes[i]) & mask;
+				while(this.used[slot]) slot = (slot + 1) & mask;
+				this.used[slot] = true;
+				this.devices[slot] = devices[i];
+				this.inodes[slot] = inodes[i];
+			}
+		}
+	}
+}
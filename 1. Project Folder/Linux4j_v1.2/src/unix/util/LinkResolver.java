@@ -0,0 +1,59 @@
+package unix.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * LinkResolver
+ * -L, --dereference : symbolic links are shown with the attributes of their target (under the link's name).
+ * A link's target is read once (readlink), and every target is stat-ed ONCE: links pointing to the same file
+ * copy the attributes of one shared entry, across all the directories listed with the same resolver [-R].
+ * Dangling links stay in the listing as links.
+ */
+public class LinkResolver
+{
+	private final Set<FileAttribute> demand;
+	private final ConcurrentHashMap<Path, FileInfo> targets;
+
+	/*
+	 * demand: attributes read for the targets
+	 */
+	public LinkResolver(Set<FileAttribute> demand)
+	{
+		super();
+		this.demand = demand;
+		this.targets = new ConcurrentHashMap<Path, FileInfo>();
+	}
+
+	/*
+	 * file with the attributes of its target, or file itself if it isn't a link (or its target can't be read)
+	 */
+	public FileInfo resolve(FileInfo file)
+	{
+		try
+		{
+			Path link = file.getSymLinkTarget();
+			if(link == null) return file;
+
+			Path target = file.getPath().toAbsolutePath().resolveSibling(link).normalize();
+			FileInfo entry = this.targets.computeIfAbsent(target, path -> new FileInfo(path, true, this.demand));
+			return entry.exists() ? new FileInfo(file, entry) : file;
+		}
+		catch(IOException | RuntimeException e) { return file; }
+	}
+
+	/*
+	 * Replace the links of files in place (in parallel for big listings)
+	 */
+	public void resolveAll(List<FileInfo> files)
+	{
+		AttributeLoader.getDefault().replaceAll(files, this::resolve);
+	}
+
+	public int getTargetCount() {
+		return this.targets.size();
+	}
+}
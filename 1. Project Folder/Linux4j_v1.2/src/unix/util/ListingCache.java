@@ -0,0 +1,266 @@
+package unix.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * ListingCache
+ * Directory snapshots of a Shell session, keyed by canonical path: listing an unchanged directory again reuses
+ * its FileInfo entries (and every attribute they already read), only the formatting is left to do.
+ * A snapshot is dropped when:
+ * 		- the WatchService reports a change in its directory (create, delete, modify of an entry)
+ * 		- the modification time of the directory isn't the one of the snapshot (fallback when watching isn't possible)
+ * 		- it's the least recently used one and the cache is over its entry count or its estimated memory
+ * The WatchService [an inotify instance on Linux, 128 per user by default] is held until close().
+ *
+ * Configuration (system property):
+ * 		linux4j.listing.entries		maximum number of directories kept (default 64, 0 disables the cache)
+ * 		linux4j.listing.bytes		maximum estimated memory of the snapshots (default 32 MB)
+ */
+public class ListingCache implements Closeable
+{
+	public static final int MAX_ENTRIES = Integer.getInteger("linux4j.listing.entries", 64);
+	public static final long MAX_BYTES = Long.getLong("linux4j.listing.bytes", 32L << 20);
+
+	//Estimated footprint of a FileInfo with its attributes, without the characters of its name and path
+	private static final long ENTRY_BYTES = 320;
+
+	private static final Set<FileAttribute> NAME_ONLY = EnumSet.noneOf(FileAttribute.class);
+
+	private final int maxEntries;
+	private final long maxBytes;
+	//Access order: the eldest entry is the least recently used
+	private final LinkedHashMap<Path, Snapshot> snapshots;
+	private WatchService watcher;
+	private boolean watching;
+
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long invalidations;
+	private long evictions;
+
+	public ListingCache()
+	{
+		this(MAX_ENTRIES, MAX_BYTES);
+	}
+
+	public ListingCache(int maxEntries, long maxBytes)
+	{
+		super();
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.snapshots = new LinkedHashMap<Path, Snapshot>(16, 0.75f, true);
+		this.watching = maxEntries > 0;
+	}
+
+	/*
+	 * Entries of directory (without . and ..), null if it can't be listed.
+	 * The list is shared: callers copy it before filtering.
+	 */
+	public List<FileInfo> list(File directory)
+	{
+		Path path;
+		FileTime modified;
+		try {
+			path = directory.toPath().toRealPath();
+			modified = Files.getLastModifiedTime(path);
+		} catch (IOException | RuntimeException e) { return null; }
+
+		if(this.maxEntries > 0)
+		{
+			synchronized(this)
+			{
+				this.drainEvents();
+				Snapshot snapshot = this.snapshots.get(path);
+				if(snapshot != null && snapshot.modified.equals(modified))
+				{
+					this.hits++;
+					return snapshot.entries;
+				}
+				if(snapshot != null) this.invalidate(path);
+				this.misses++;
+			}
+		}
+
+		//Read outside of the lock, directories of a recursive listing are read in parallel
+		String names[] = path.toFile().list();
+		if(names == null) return null;
+		String prefix = path.toString() + File.separator;
+		long size = 0;
+		ArrayList<FileInfo> entries = new ArrayList<FileInfo>(names.length);
+		for(String name: names)
+		{
+			entries.add(new FileInfo(new File(prefix + name), false, NAME_ONLY));
+			size += ENTRY_BYTES + 2L * (prefix.length() + 2 * name.length());
+		}
+		List<FileInfo> snapshotEntries = Collections.unmodifiableList(entries);
+
+		if(this.maxEntries > 0)
+		{
+			synchronized(this)
+			{
+				this.put(path, new Snapshot(snapshotEntries, modified, size, this.watch(path)));
+			}
+		}
+		return snapshotEntries;
+	}
+
+	public synchronized void clear()
+	{
+		for(Snapshot snapshot: this.snapshots.values()) if(snapshot.key != null) snapshot.key.cancel();
+		this.snapshots.clear();
+		this.bytes = 0;
+	}
+
+	/*
+	 * Drop every snapshot and release the WatchService (the cache still works after, checking the modification times only)
+	 */
+	@Override
+	public synchronized void close()
+	{
+		this.clear();
+		this.watching = false;
+		if(this.watcher == null) return;
+		try { this.watcher.close(); }
+		catch (IOException e) {} //Closed anyway
+		this.watcher = null;
+	}
+
+	private void put(Path path, Snapshot snapshot)
+	{
+		Snapshot previous = this.snapshots.put(path, snapshot);
+		if(previous != null)
+		{
+			this.bytes -= previous.bytes;
+			if(previous.key != null && previous.key != snapshot.key) previous.key.cancel();
+		}
+		this.bytes += snapshot.bytes;
+
+		//Least recently used first, the new snapshot is always kept
+		Iterator<Map.Entry<Path, Snapshot>> eldest = this.snapshots.entrySet().iterator();
+		while((this.snapshots.size() > this.maxEntries || this.bytes > this.maxBytes) && this.snapshots.size() > 1)
+		{
+			Snapshot evicted = eldest.next().getValue();
+			eldest.remove();
+			this.release(evicted);
+			this.evictions++;
+		}
+	}
+
+	private void invalidate(Path path)
+	{
+		Snapshot snapshot = this.snapshots.remove(path);
+		if(snapshot == null) return;
+		this.release(snapshot);
+		this.invalidations++;
+	}
+
+	private void release(Snapshot snapshot)
+	{
+		this.bytes -= snapshot.bytes;
+		if(snapshot.key != null) snapshot.key.cancel();
+	}
+
+	/*
+	 * Watch directory for changes of its entries, null if it can't be watched (the modification time is then the only check)
+	 */
+	private WatchKey watch(Path directory)
+	{
+		if(!this.watching) return null;
+		try {
+			if(this.watcher == null) this.watcher = FileSystems.getDefault().newWatchService();
+			return directory.register(this.watcher,
+					StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+		}
+		catch (IOException | RuntimeException e) {
+			//No watch service for this file system, or no more watches available
+			this.watching = this.watcher != null;
+			return null;
+		}
+	}
+
+	/*
+	 * Every directory with pending events (or an overflow) loses its snapshot
+	 */
+	private void drainEvents()
+	{
+		if(this.watcher == null) return;
+		WatchKey key;
+		while((key = this.watcher.poll()) != null)
+		{
+			key.pollEvents();
+			Path directory = (Path) key.watchable();
+			Snapshot snapshot = this.snapshots.get(directory);
+			if(snapshot != null && snapshot.key == key) this.invalidate(directory);
+			else key.cancel();
+		}
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized int getSize() {
+		return this.snapshots.size();
+	}
+
+	public synchronized long getBytes() {
+		return bytes;
+	}
+	/************************************************************************************************************************/
+
+	@Override
+	public synchronized String toString()
+	{
+		return "listing cache: " + this.snapshots.size() + " directories, ~" + (this.bytes >> 10) + " KB, "
+				+ this.hits + " hits, " + this.misses + " misses, " + this.invalidations + " invalidations, " + this.evictions + " evictions";
+	}
+
+
+
+	private static class Snapshot
+	{
+		private final List<FileInfo> entries;
+		private final FileTime modified;
+		private final long bytes;
+		private final WatchKey key;
+
+		Snapshot(List<FileInfo> entries, FileTime modified, long bytes, WatchKey key)
+		{
+			this.entries = entries;
+			this.modified = modified;
+			this.bytes = bytes;
+			this.key = key;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package unix.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/*
+ * OutputBuffer
+ * Reusable row buffer: rows are appended to ONE StringBuilder which is written to the target in large chunks,
+ * instead of one (formatted) write per column.
+ */
+public class OutputBuffer
+{
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+	public static final String NEWLINE = System.lineSeparator();
+
+	private final Writer out;
+	private final StringBuilder buffer;
+	private final int capacity;
+
+	public OutputBuffer(Writer out)
+	{
+		this(out, DEFAULT_CAPACITY);
+	}
+
+	public OutputBuffer(Writer out, int capacity)
+	{
+		super();
+		this.out = out;
+		this.capacity = capacity;
+		this.buffer = new StringBuilder(capacity + 256);
+	}
+
+	/*
+	 * Builder the next row is appended to
+	 */
+	public StringBuilder row()
+	{
+		return this.buffer;
+	}
+
+	/*
+	 * End of a row: the buffer is written once it's full
+	 */
+	public void endRow()
+	{
+		if(this.buffer.length() >= this.capacity) this.flush();
+	}
+
+	public void flush()
+	{
+		if(this.buffer.length() == 0) return;
+		try {
+			this.out.append(this.buffer);
+			this.out.flush();
+		} catch (IOException e) {} //PrintWriter targets never throw, they keep the error state
+		this.buffer.setLength(0);
+	}
+
+	/*
+	 * %-W.Ws : left-aligned, cut or padded to width
+	 */
+	public static StringBuilder padRight(StringBuilder row, String text, int width)
+	{
+		if(text.length() >= width) return row.append(text, 0, width);
+		row.append(text);
+		for(int i=text.length(); i<width; i++) row.append(' ');
+		return row;
+	}
+
+	/*
+	 * %W.Ws : right-aligned, cut or padded to width
+	 */
+	public static StringBuilder padLeft(StringBuilder row, String text, int width)
+	{
+		if(text.length() >= width) return row.append(text, 0, width);
+		for(int i=text.length(); i<width; i++) row.append(' ');
+		return row.append(text);
+	}
+}
@@ -0,0 +1,640 @@
+package unix.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+ * PathIndex
+ * The index of updatedb/locate: ONE file, memory-mapped read-only [FileChannel.map], queried in place (never loaded).
+ * 		- paths:		the absolute paths sorted, front-coded (shared prefix length + suffix) in blocks of 16, one offset per block
+ * 		- directories:	id of every directory, end of its subtree (its descendants are the ids right after it), its mtime
+ * 		- trigrams:		for every trigram of the entry names (lowercased), the ids of the entries whose name contains it
+ * 						(delta-encoded varints), sorted by trigram for a binary search
+ * A literal of 3 bytes or more is looked up in the postings: the entries whose name contains it, and the subtrees of the
+ * matching directories. The directories above a root aren't indexed: a root whose parent path contains the literal
+ * [/tmp for /tmp/li] has its whole subtree visited. Shorter literals read every path, sequentially.
+ * An opened index is shared by the process, it's mapped again once updatedb replaced the file.
+ *
+ * Configuration (system property):
+ * 		linux4j.locate.db		index file (default ~/.linux4j/locate.db)
+ */
+public final class PathIndex
+{
+	public static final String DEFAULT_DATABASE = System.getProperty("linux4j.locate.db",
+			System.getProperty("user.home") + File.separator + ".linux4j" + File.separator + "locate.db");
+
+	private static final int MAGIC = 0x4C344A49; // L4JI
+	private static final int VERSION = 1;
+	private static final int HEADER = 64;
+
+	//Paths per front-coded block (the first one of a block is written whole)
+	private static final int BLOCK_SHIFT = 4;
+	private static final int BLOCK = 1 << BLOCK_SHIFT;
+
+	private static final int DIRECTORY_BYTES = 16;	// id, end of subtree, mtime
+	private static final int TRIGRAM_BYTES = 12;	// trigram, offset of its postings, count
+
+	/*
+	 * Order of the paths: a separator comes before any other character, a directory is followed by its whole subtree
+	 * [/a/b, /a/b/c, /a/b-c] (by plain String order /a/b-c would come between /a/b and /a/b/c)
+	 */
+	public static final Comparator<String> ORDER = (a, b) -> {
+		int length = Math.min(a.length(), b.length());
+		for(int i=0; i<length; i++)
+		{
+			char x = a.charAt(i), y = b.charAt(i);
+			if(x == y) continue;
+			if(isSeparator(x)) return -1;
+			if(isSeparator(y)) return 1;
+			return x - y;
+		}
+		return a.length() - b.length();
+	};
+
+	//Opened indexes of the process, by file
+	private static final Map<Path, PathIndex> OPENED = new HashMap<Path, PathIndex>();
+
+	private final Path file;
+	private final Object fileKey;
+	private final long fileModified;
+	private final MappedByteBuffer buffer;
+
+	private final int pathCount;
+	private final int directoryCount;
+	private final int trigramCount;
+	private final long built;
+	private final List<String> roots;
+	private final int pathsOffset;
+	private final int blocksOffset;
+	private final int directoriesOffset;
+	private final int trigramsOffset;
+	private final int postingsOffset;
+
+	/*
+	 * Visitor of the candidate paths, in index order: false stops the search
+	 */
+	public interface Visitor
+	{
+		boolean visit(int id, String path);
+	}
+
+	/*
+	 * Visitor of every entry [PathIndexer]: modified is the mtime of a directory, -1 for the other entries
+	 */
+	interface EntryVisitor
+	{
+		void visit(String path, long modified);
+	}
+
+	private PathIndex(Path file, BasicFileAttributes attributes) throws IOException
+	{
+		super();
+		this.file = file;
+		this.fileKey = attributes.fileKey();
+		this.fileModified = attributes.lastModifiedTime().toMillis();
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			if(size < HEADER || size > Integer.MAX_VALUE) throw new IOException(file + ": not a path index");
+			//The mapping stays valid once the channel is closed
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+
+		if(this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != VERSION) throw new IOException(file + ": not a path index");
+		this.pathCount = this.buffer.getInt(8);
+		this.directoryCount = this.buffer.getInt(12);
+		this.trigramCount = this.buffer.getInt(16);
+		int rootCount = this.buffer.getInt(20);
+		this.built = this.buffer.getLong(24);
+		this.pathsOffset = this.buffer.getInt(32);
+		this.blocksOffset = this.buffer.getInt(36);
+		this.directoriesOffset = this.buffer.getInt(40);
+		this.trigramsOffset = this.buffer.getInt(44);
+		this.postingsOffset = this.buffer.getInt(48);
+
+		ByteBuffer in = this.buffer.duplicate();
+		in.position(HEADER);
+		List<String> roots = new ArrayList<String>(rootCount);
+		for(int i=0; i<rootCount; i++)
+		{
+			byte[] root = new byte[in.getInt()];
+			in.get(root);
+			roots.add(new String(root, StandardCharsets.UTF_8));
+		}
+		this.roots = Collections.unmodifiableList(roots);
+	}
+
+	/*
+	 * The index of file, mapped once for the process (again if the file was replaced since)
+	 */
+	public static PathIndex open(Path file) throws IOException
+	{
+		Path key = file.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		synchronized(OPENED)
+		{
+			PathIndex index = OPENED.get(key);
+			if(index == null || !index.isCurrent(attributes))
+			{
+				index = new PathIndex(key, attributes);
+				OPENED.put(key, index);
+			}
+			return index;
+		}
+	}
+
+	private boolean isCurrent(BasicFileAttributes attributes)
+	{
+		return Objects.equals(this.fileKey, attributes.fileKey()) && this.fileModified == attributes.lastModifiedTime().toMillis()
+				&& this.buffer.capacity() == attributes.size();
+	}
+
+	/*******************************************************QUERIES*****************************************************************/
+	/*
+	 * Visit, in index order, every path that may contain literal: the caller still matches them.
+	 * literal: without '/' (null or shorter than 3 bytes: every path), namesOnly: literal is only looked for in the names (-b)
+	 */
+	public void candidates(String literal, boolean namesOnly, Visitor visitor)
+	{
+		byte[] folded = literal == null ? null : fold(literal).getBytes(StandardCharsets.UTF_8);
+		Reader reader = new Reader();
+		if(folded == null || folded.length < 3)
+		{
+			for(reader.seek(0); reader.id < this.pathCount; reader.next())
+				if(!visitor.visit(reader.id, reader.path())) return;
+			return;
+		}
+
+		String needle = fold(literal);
+		int[][] roots = namesOnly ? new int[0][] : this.rootsAbove(needle);
+		int covered = 0, root = 0;
+		for(int id: this.lookup(folded))
+		{
+			//Subtrees of the roots below a matching directory, before id
+			for(; root < roots.length && roots[root][0] <= id; root++)
+			{
+				if(!this.visitRange(reader, Math.max(covered, roots[root][0]), roots[root][1], visitor)) return;
+				covered = Math.max(covered, roots[root][1]);
+			}
+
+			//Already visited with the subtree of a matching directory
+			if(id < covered) continue;
+
+			reader.seek(id);
+			String path = reader.path();
+			if(fold(name(path)).indexOf(needle) < 0) continue; //Every trigram, not the literal
+			if(!visitor.visit(id, path)) return;
+
+			int end = namesOnly ? -1 : this.subtreeEnd(id);
+			if(end < 0) continue;
+			for(reader.next(); reader.id < end; reader.next())
+				if(!visitor.visit(reader.id, reader.path())) return;
+			covered = end;
+		}
+		for(; root < roots.length; root++)
+		{
+			if(!this.visitRange(reader, Math.max(covered, roots[root][0]), roots[root][1], visitor)) return;
+			covered = Math.max(covered, roots[root][1]);
+		}
+	}
+
+	/*
+	 * Ids [from, to) of the subtree of every root whose parent path contains needle (folded), sorted by id
+	 */
+	private int[][] rootsAbove(String needle)
+	{
+		List<int[]> ranges = new ArrayList<int[]>();
+		for(String root: this.roots)
+		{
+			String parent = root.substring(0, root.length() - name(root).length());
+			if(fold(parent).indexOf(needle) < 0) continue;
+			int id = this.indexOf(root);
+			if(id < 0) continue;
+			int end = this.subtreeEnd(id);
+			ranges.add(new int[] {id, end < 0 ? id + 1 : end});
+		}
+		Collections.sort(ranges, (a, b) -> Integer.compare(a[0], b[0]));
+		return ranges.toArray(new int[ranges.size()][]);
+	}
+
+	private boolean visitRange(Reader reader, int from, int to, Visitor visitor)
+	{
+		if(from >= to) return true;
+		for(reader.seek(from); reader.id < to; reader.next())
+			if(!visitor.visit(reader.id, reader.path())) return false;
+		return true;
+	}
+
+	/*
+	 * Id of path, -1 if it isn't indexed: binary search on the first path of the blocks, then a scan of one block
+	 */
+	private int indexOf(String path)
+	{
+		if(this.pathCount == 0) return -1;
+		Reader reader = new Reader();
+		int low = 0, high = (this.pathCount - 1) >>> BLOCK_SHIFT;
+		while(low < high)
+		{
+			int middle = (low + high + 1) >>> 1;
+			reader.seek(middle << BLOCK_SHIFT);
+			if(ORDER.compare(reader.path(), path) <= 0) low = middle;
+			else high = middle - 1;
+		}
+		for(reader.seek(low << BLOCK_SHIFT); reader.id < this.pathCount && reader.id < (low + 1) << BLOCK_SHIFT; reader.next())
+			if(reader.path().equals(path)) return reader.id;
+		return -1;
+	}
+
+	/*
+	 * Ids of the entries whose name has every trigram of the literal (sorted): the shortest postings first
+	 */
+	private int[] lookup(byte[] literal)
+	{
+		int[] keys = new int[literal.length - 2];
+		for(int i=0; i<keys.length; i++) keys[i] = trigram(literal, i);
+		Arrays.sort(keys);
+
+		int[] entries = new int[keys.length];
+		int distinct = 0;
+		for(int i=0; i<keys.length; i++)
+		{
+			if(i > 0 && keys[i] == keys[i - 1]) continue;
+			int entry = this.findTrigram(keys[i]);
+			if(entry < 0) return new int[0];
+			entries[distinct++] = entry;
+		}
+
+		Integer[] order = new Integer[distinct];
+		for(int i=0; i<distinct; i++) order[i] = entries[i];
+		Arrays.sort(order, (a, b) -> Integer.compare(this.postingCount(a), this.postingCount(b)));
+
+		int[] ids = this.postings(order[0]);
+		int count = ids.length;
+		for(int i=1; i<distinct && count > 0; i++) count = this.intersect(ids, count, order[i]);
+		return Arrays.copyOf(ids, count);
+	}
+
+	private int findTrigram(int key)
+	{
+		int low = 0, high = this.trigramCount - 1;
+		while(low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			int found = this.buffer.getInt(this.trigramsOffset + middle * TRIGRAM_BYTES);
+			if(found < key) low = middle + 1;
+			else if(found > key) high = middle - 1;
+			else return middle;
+		}
+		return -1;
+	}
+
+	private int postingCount(int entry)
+	{
+		return this.buffer.getInt(this.trigramsOffset + entry * TRIGRAM_BYTES + 8);
+	}
+
+	private int[] postings(int entry)
+	{
+		ByteBuffer in = this.buffer.duplicate();
+		in.position(this.postingsOffset + this.buffer.getInt(this.trigramsOffset + entry * TRIGRAM_BYTES + 4));
+		int[] ids = new int[this.postingCount(entry)];
+		for(int i=0, id=0; i<ids.length; i++) ids[i] = id += readVarint(in);
+		return ids;
+	}
+
+	/*
+	 * Keep the first count ids that are in the postings of entry (both sorted), the new count
+	 */
+	private int intersect(int[] ids, int count, int entry)
+	{
+		ByteBuffer in = this.buffer.duplicate();
+		in.position(this.postingsOffset + this.buffer.getInt(this.trigramsOffset + entry * TRIGRAM_BYTES + 4));
+		int remaining = this.postingCount(entry);
+		int kept = 0, posting = remaining-- > 0 ? readVarint(in) : Integer.MAX_VALUE;
+		for(int i=0; i<count; i++)
+		{
+			while(posting < ids[i]) posting = remaining-- > 0 ? posting + readVarint(in) : Integer.MAX_VALUE;
+			if(posting == ids[i]) ids[kept++] = ids[i];
+		}
+		return kept;
+	}
+
+	/*
+	 * First id after the subtree of the directory id, -1 if id isn't a directory
+	 */
+	private int subtreeEnd(int id)
+	{
+		int low = 0, high = this.directoryCount - 1;
+		while(low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			int found = this.buffer.getInt(this.directoriesOffset + middle * DIRECTORY_BYTES);
+			if(found < id) low = middle + 1;
+			else if(found > id) high = middle - 1;
+			else return this.buffer.getInt(this.directoriesOffset + middle * DIRECTORY_BYTES + 4);
+		}
+		return -1;
+	}
+
+	/*
+	 * Every entry in index order, with the mtime of the directories
+	 */
+	void forEach(EntryVisitor visitor)
+	{
+		Reader reader = new Reader();
+		int directory = 0;
+		for(reader.seek(0); reader.id < this.pathCount; reader.next())
+		{
+			long modified = -1;
+			if(directory < this.directoryCount && this.buffer.getInt(this.directoriesOffset + directory * DIRECTORY_BYTES) == reader.id)
+				modified = this.buffer.getLong(this.directoriesOffset + (directory++) * DIRECTORY_BYTES + 8);
+			visitor.visit(reader.path(), modified);
+		}
+	}
+
+	/*
+	 * Sequential decoder of the front-coded paths (its own position: several queries can read the index at once)
+	 */
+	private final class Reader
+	{
+		private final ByteBuffer in;
+		private byte[] path;
+		private int length;
+		private int id;
+
+		Reader()
+		{
+			this.in = PathIndex.this.buffer.duplicate();
+			this.path = new byte[256];
+		}
+
+		void seek(int id)
+		{
+			int block = id >>> BLOCK_SHIFT;
+			this.id = block << BLOCK_SHIFT;
+			if(this.id >= PathIndex.this.pathCount) {this.id = PathIndex.this.pathCount; return;}
+			this.in.position(PathIndex.this.pathsOffset + PathIndex.this.buffer.getInt(PathIndex.this.blocksOffset + block * 4));
+			this.decode();
+			while(this.id < id) this.next();
+		}
+
+		void next()
+		{
+			if(++this.id < PathIndex.this.pathCount) this.decode();
+		}
+
+		private void decode()
+		{
+			int shared = readVarint(this.in);
+			int suffix = readVarint(this.in);
+			if(shared + suffix > this.path.length) this.path = Arrays.copyOf(this.path, Math.max(shared + suffix, this.path.length * 2));
+			this.in.get(this.path, shared, suffix);
+			this.length = shared + suffix;
+		}
+
+		String path()
+		{
+			return new String(this.path, 0, this.length, StandardCharsets.UTF_8);
+		}
+	}
+	/******************************************************************************************************************************/
+
+	/********************************************************WRITER*****************************************************************/
+	/*
+	 * Write the index of paths (absolute, sorted by ORDER) to file: written aside, then moved over the previous index
+	 * directories: mtime of every path that is a directory
+	 */
+	static void write(Path file, List<String> roots, List<String> paths, Map<String, Long> directories) throws IOException
+	{
+		ByteArrayOutputStream rootBytes = new ByteArrayOutputStream();
+		DataOutputStream rootOut = new DataOutputStream(rootBytes);
+		for(String root: roots)
+		{
+			byte[] bytes = root.getBytes(StandardCharsets.UTF_8);
+			rootOut.writeInt(bytes.length);
+			rootOut.write(bytes);
+		}
+
+		//Paths, front-coded, and the directory table (subtree ends closed with a stack of the open directories)
+		ByteArrayOutputStream pathBytes = new ByteArrayOutputStream(paths.size() * 16);
+		ByteArrayOutputStream blockBytes = new ByteArrayOutputStream((paths.size() / BLOCK + 1) * 4);
+		DataOutputStream blocks = new DataOutputStream(blockBytes);
+		int[] directoryIds = new int[directories.size()];
+		int[] directoryEnds = new int[directories.size()];
+		long[] directoryTimes = new long[directories.size()];
+		int directoryCount = 0;
+		int[] open = new int[64];
+		int depth = 0;
+		String[] openPrefixes = new String[64];
+
+		//Trigram postings: trigram << 32 | id, sorted afterwards
+		long[] postings = new long[16 + paths.size() * 4];
+		int postingCount = 0;
+
+		byte[] previous = new byte[0];
+		for(int id=0; id<paths.size(); id++)
+		{
+			String path = paths.get(id);
+			while(depth > 0 && !path.startsWith(openPrefixes[depth - 1])) directoryEnds[open[--depth]] = id;
+
+			byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+			int shared = 0;
+			if((id & (BLOCK - 1)) == 0) blocks.writeInt(pathBytes.size());
+			else while(shared < bytes.length && shared < previous.length && bytes[shared] == previous[shared]) shared++;
+			writeVarint(pathBytes, shared);
+			writeVarint(pathBytes, bytes.length - shared);
+			pathBytes.write(bytes, shared, bytes.length - shared);
+			previous = bytes;
+
+			Long modified = directories.get(path);
+			if(modified != null)
+			{
+				directoryIds[directoryCount] = id;
+				directoryTimes[directoryCount] = modified;
+				if(depth == open.length) {open = Arrays.copyOf(open, depth * 2); openPrefixes = Arrays.copyOf(openPrefixes, depth * 2);}
+				open[depth] = directoryCount++;
+				openPrefixes[depth++] = isSeparator(path.charAt(path.length() - 1)) ? path : path + File.separator;
+			}
+
+			byte[] name = fold(name(path)).getBytes(StandardCharsets.UTF_8);
+			for(int i=0; i + 2 < name.length; i++)
+			{
+				if(postingCount == postings.length) postings = Arrays.copyOf(postings, postingCount * 2);
+				postings[postingCount++] = (long) trigram(name, i) << 32 | id;
+			}
+		}
+		while(depth > 0) directoryEnds[open[--depth]] = paths.size();
+
+		ByteArrayOutputStream directoryBytes = new ByteArrayOutputStream(directoryCount * DIRECTORY_BYTES);
+		DataOutputStream directoryOut = new DataOutputStream(directoryBytes);
+		for(int i=0; i<directoryCount; i++)
+		{
+			directoryOut.writeInt(directoryIds[i]);
+			directoryOut.writeInt(directoryEnds[i]);
+			directoryOut.writeLong(directoryTimes[i]);
+		}
+
+		//Postings grouped by trigram, ids ascending (a name with the same trigram twice counts once)
+		Arrays.sort(postings, 0, postingCount);
+		ByteArrayOutputStream trigramBytes = new ByteArrayOutputStream();
+		DataOutputStream trigramOut = new DataOutputStream(trigramBytes);
+		ByteArrayOutputStream postingBytes = new ByteArrayOutputStream(postingCount * 2);
+		int trigramCount = 0;
+		for(int i=0; i<postingCount; )
+		{
+			int key = (int) (postings[i] >>> 32);
+			int offset = postingBytes.size(), count = 0, last = 0;
+			for(; i<postingCount && (int) (postings[i] >>> 32) == key; i++)
+			{
+				int id = (int) postings[i];
+				if(count > 0 && id == last) continue;
+				writeVarint(postingBytes, id - last);
+				last = id;
+				count++;
+			}
+			trigramOut.writeInt(key);
+			trigramOut.writeInt(offset);
+			trigramOut.writeInt(count);
+			trigramCount++;
+		}
+
+		int pathsOffset = HEADER + rootBytes.size();
+		int blocksOffset = pathsOffset + pathBytes.size();
+		int directoriesOffset = blocksOffset + blockBytes.size();
+		int trigramsOffset = directoriesOffset + directoryBytes.size();
+		int postingsOffset = trigramsOffset + trigramBytes.size();
+		if((long) postingsOffset + postingBytes.size() > Integer.MAX_VALUE) throw new IOException(file + ": index over 2 GB");
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER);
+		header.putInt(MAGIC).putInt(VERSION).putInt(paths.size()).putInt(directoryCount).putInt(trigramCount).putInt(roots.size())
+				.putLong(System.currentTimeMillis()).putInt(pathsOffset).putInt(blocksOffset).putInt(directoriesOffset)
+				.putInt(trigramsOffset).putInt(postingsOffset);
+		header.clear();
+
+		Path parent = file.toAbsolutePath().getParent();
+		if(parent != null) Files.createDirectories(parent);
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			ByteBuffer[] sections = {header, ByteBuffer.wrap(rootBytes.toByteArray()), ByteBuffer.wrap(pathBytes.toByteArray()),
+					ByteBuffer.wrap(blockBytes.toByteArray()), ByteBuffer.wrap(directoryBytes.toByteArray()),
+					ByteBuffer.wrap(trigramBytes.toByteArray()), ByteBuffer.wrap(postingBytes.toByteArray())};
+			for(ByteBuffer section: sections) while(section.hasRemaining()) channel.write(section);
+		}
+		try { Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); }
+		catch(AtomicMoveNotSupportedException e) { Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING); }
+	}
+	/******************************************************************************************************************************/
+
+	/*
+	 * Name of a path: after its last separator ("" for a root)
+	 */
+	public static String name(String path)
+	{
+		int end = path.length();
+		while(end > 1 && isSeparator(path.charAt(end - 1))) end--;
+		int start = end;
+		while(start > 0 && !isSeparator(path.charAt(start - 1))) start--;
+		return path.substring(start, end);
+	}
+
+	private static boolean isSeparator(char c)
+	{
+		return c == '/' || c == File.separatorChar;
+	}
+
+	/*
+	 * Lowercase, char by char (the same length and the same folding for a name and a literal)
+	 */
+	public static String fold(String text)
+	{
+		char[] chars = text.toCharArray();
+		for(int i=0; i<chars.length; i++) chars[i] = Character.toLowerCase(chars[i]);
+		return new String(chars);
+	}
+
+	private static int trigram(byte[] bytes, int i)
+	{
+		return (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value)
+	{
+		while((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(ByteBuffer in)
+	{
+		int value = 0;
+		for(int shift = 0; ; shift += 7)
+		{
+			byte b = in.get();
+			value |= (b & 0x7F) << shift;
+			if(b >= 0) return value;
+		}
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public Path getFile() {
+		return file;
+	}
+
+	public int getPathCount() {
+		return pathCount;
+	}
+
+	public int getDirectoryCount() {
+		return directoryCount;
+	}
+
+	public int getTrigramCount() {
+		return trigramCount;
+	}
+
+	// epoch milliseconds
+	public long getBuilt() {
+		return built;
+	}
+
+	public List<String> getRoots() {
+		return roots;
+	}
+
+	public long getSize() {
+		return buffer.capacity();
+	}
+	/************************************************************************************************************************/
+
+	@Override
+	public String toString()
+	{
+		return "path index " + this.file + ": " + this.pathCount + " paths (" + this.directoryCount + " directories), "
+				+ this.trigramCount + " trigrams, " + this.getSize() + " bytes";
+	}
+}
@@ -0,0 +1,189 @@
+package unix.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * PathIndexer
+ * updatedb: walks the roots and writes their PathIndex. When the index already exists the walk is incremental:
+ * a directory whose mtime is the one recorded in the index isn't read again, its entries are taken from the index
+ * (creating, deleting or renaming an entry changes the mtime of its directory), only its subdirectories are checked.
+ * Links are indexed, never followed. Unreadable directories are indexed without their content.
+ */
+public class PathIndexer
+{
+	private final Path database;
+
+	//Walk of the last update
+	private int directories;
+	private int rescanned;
+	private int entries;
+	private long elapsedNanos;
+
+	public PathIndexer(Path database)
+	{
+		super();
+		this.database = database;
+	}
+
+	/*
+	 * Index the roots (absolute paths), reusing the unchanged directories of the current index
+	 */
+	public void update(List<String> roots) throws IOException
+	{
+		long start = System.nanoTime();
+		this.directories = 0;
+		this.rescanned = 0;
+
+		//Previous index: mtime of every directory and the entries of each one
+		final Map<String, Long> recorded = new HashMap<String, Long>();
+		final Map<String, List<String>> recordedEntries = new HashMap<String, List<String>>();
+		if(Files.isRegularFile(this.database))
+		{
+			PathIndex previous;
+			try { previous = PathIndex.open(this.database); }
+			catch(IOException e) { previous = null; } //Unreadable: everything is read again
+			if(previous != null) previous.forEach((path, modified) -> {
+				if(modified >= 0) recorded.put(path, modified);
+				String parent = parent(path);
+				if(parent != null) recordedEntries.computeIfAbsent(parent, directory -> new ArrayList<String>()).add(path);
+			});
+		}
+
+		List<String> paths = new ArrayList<String>();
+		Map<String, Long> modified = new HashMap<String, Long>();
+		ArrayDeque<String> pending = new ArrayDeque<String>();
+		for(String root: roots)
+		{
+			BasicFileAttributes attributes = attributes(root);
+			if(attributes == null || modified.containsKey(root)) continue;
+			paths.add(root);
+			if(attributes.isDirectory())
+			{
+				modified.put(root, attributes.lastModifiedTime().toMillis());
+				pending.push(root);
+			}
+		}
+
+		while(!pending.isEmpty())
+		{
+			String directory = pending.pop();
+			this.directories++;
+			Long before = recorded.get(directory);
+
+			//Unchanged: the same entries, the subdirectories are checked on their own
+			if(before != null && before.longValue() == modified.get(directory).longValue())
+			{
+				List<String> children = recordedEntries.get(directory);
+				if(children == null) continue;
+				for(String child: children)
+				{
+					if(!recorded.containsKey(child)) {paths.add(child); continue;}
+					BasicFileAttributes attributes = attributes(child);
+					if(attributes == null) continue;
+					this.add(child, attributes, paths, modified, pending);
+				}
+				continue;
+			}
+
+			this.rescanned++;
+			try(DirectoryStream<Path> children = Files.newDirectoryStream(Paths.get(directory)))
+			{
+				for(Path child: children)
+				{
+					BasicFileAttributes attributes = attributes(child);
+					if(attributes == null) continue;
+					this.add(child.toString(), attributes, paths, modified, pending);
+				}
+			}
+			catch(IOException | InvalidPathException e) {} //Unreadable or removed meanwhile: indexed without its content
+		}
+
+		//Nested roots [updatedb /data /data/logs] walk some directories twice: each path is kept once
+		Collections.sort(paths, PathIndex.ORDER);
+		int kept = 0;
+		for(int i=0; i<paths.size(); i++)
+			if(kept == 0 || !paths.get(i).equals(paths.get(kept - 1))) paths.set(kept++, paths.get(i));
+		paths.subList(kept, paths.size()).clear();
+		PathIndex.write(this.database, roots, paths, modified);
+		this.entries = paths.size();
+		this.elapsedNanos = System.nanoTime() - start;
+	}
+
+	private void add(String path, BasicFileAttributes attributes, List<String> paths, Map<String, Long> modified, ArrayDeque<String> pending)
+	{
+		paths.add(path);
+		if(!attributes.isDirectory()) return;
+		modified.put(path, attributes.lastModifiedTime().toMillis());
+		pending.push(path);
+	}
+
+	/*
+	 * Attributes of the entry itself (not of a link target), null if it's gone
+	 */
+	private static BasicFileAttributes attributes(Path path)
+	{
+		try { return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS); }
+		catch(IOException e) { return null; }
+	}
+
+	private static BasicFileAttributes attributes(String path)
+	{
+		try { return attributes(Paths.get(path)); }
+		catch(InvalidPathException e) { return null; }
+	}
+
+	/*
+	 * Parent of an indexed path, as a string (the names the platform can't encode are kept as they were read)
+	 */
+	private static String parent(String path)
+	{
+		int end = path.length() - 1;
+		while(end >= 0 && path.charAt(end) != '/' && path.charAt(end) != File.separatorChar) end--;
+		if(end < 0 || path.length() == 1) return null;
+		return path.substring(0, end == 0 || path.charAt(end - 1) == ':' ? end + 1 : end);
+	}
+
+	/**************************************************SETTERS/GETTERS********************************************************/
+	public Path getDatabase() {
+		return database;
+	}
+
+	public int getEntries() {
+		return entries;
+	}
+
+	public int getDirectories() {
+		return directories;
+	}
+
+	// Directories read by the last update (the others were unchanged)
+	public int getRescanned() {
+		return rescanned;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	/************************************************************************************************************************/
+
+	@Override
+	public String toString()
+	{
+		return "updatedb: " + this.entries + " entries, " + this.directories + " directories (" + this.rescanned + " read, "
+				+ (this.directories - this.rescanned) + " unchanged) in " + String.format("%.1f", this.elapsedNanos / 1e6) + " ms -> " + this.database;
+	}
+}
@@ -0,0 +1,88 @@
+package unix.util;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * PrincipalCache
+ * Process-wide uid/gid --> name cache: a listing resolves each distinct owner and group ONCE,
+ * whatever the number of files they own (a directory of 100k files with 3 owners costs 3 name-service lookups).
+ * Lookups of different ids run in parallel, concurrent misses on the same id wait for the single lookup.
+ * The cache is bounded: past its capacity, an arbitrary entry is evicted for each new one.
+ *
+ * Configuration (system property):
+ * 		linux4j.principal.capacity	maximum number of users, and of groups, kept (default 4096)
+ */
+public final class PrincipalCache
+{
+	public static final int CAPACITY = Integer.getInteger("linux4j.principal.capacity", 4096);
+
+	private static final PrincipalCache DEFAULT = new PrincipalCache(CAPACITY);
+
+	/*
+	 * Name-service lookup of one id, only called on a miss
+	 */
+	public interface Resolver
+	{
+		String resolve() throws IOException;
+	}
+
+	private final int capacity;
+	private final ConcurrentHashMap<Integer, String> users;
+	private final ConcurrentHashMap<Integer, String> groups;
+
+	public PrincipalCache(int capacity)
+	{
+		super();
+		this.capacity = Math.max(1, capacity);
+		this.users = new ConcurrentHashMap<Integer, String>();
+		this.groups = new ConcurrentHashMap<Integer, String>();
+	}
+
+	public static PrincipalCache getDefault()
+	{
+		return DEFAULT;
+	}
+
+	public String user(int uid, Resolver resolver)
+	{
+		return this.lookup(this.users, uid, resolver);
+	}
+
+	public String group(int gid, Resolver resolver)
+	{
+		return this.lookup(this.groups, gid, resolver);
+	}
+
+	public void clear()
+	{
+		this.users.clear();
+		this.groups.clear();
+	}
+
+	private String lookup(ConcurrentHashMap<Integer, String> names, int id, Resolver resolver)
+	{
+		String name = names.get(id);
+		if(name != null) return name;
+
+		if(names.size() >= this.capacity) evict(names);
+		return names.computeIfAbsent(id, key -> {
+			try {
+				return resolver.resolve();
+			}
+			//Unknown id (deleted user, foreign file system): shown as a number like ls does
+			catch (IOException | RuntimeException e) { return Integer.toString(key); }
+		});
+	}
+
+	private static void evict(ConcurrentHashMap<Integer, String> names)
+	{
+		Iterator<Integer> ids = names.keySet().iterator();
+		if(ids.hasNext())
+		{
+			ids.next();
+			ids.remove();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package unix.util;
+
+import java.util.ArrayList;
+
+/*
+ * VersionKey
+ * Natural (version) order of a name, like "ls -v": "file9" < "file10", "v1.2.9" < "v1.2.10".
+ * The name is split ONCE into alternating text/number segments, so comparing two keys doesn't parse anything.
+ */
+public final class VersionKey implements Comparable<VersionKey>
+{
+	private final String name;
+
+	// Even positions: text (possibly empty), odd positions: digits without their leading zeros
+	private final String[] segments;
+
+	public VersionKey(String name)
+	{
+		this.name = name;
+
+		ArrayList<String> parts = new ArrayList<String>();
+		int start = 0;
+		boolean digits = false;
+		for(int i=0; i<=name.length(); i++)
+		{
+			if(i < name.length() && isDigit(name.charAt(i)) == digits) continue;
+
+			if(digits)
+			{
+				//Leading zeros don't change the value
+				int first = start;
+				while(first < i - 1 && name.charAt(first) == '0') first++;
+				parts.add(name.substring(first, i));
+			}
+			else parts.add(name.substring(start, i));
+
+			start = i;
+			digits = !digits;
+		}
+		this.segments = parts.toArray(new String[parts.size()]);
+	}
+
+	private static boolean isDigit(char c)
+	{
+		return c >= '0' && c <= '9';
+	}
+
+	@Override
+	public int compareTo(VersionKey other)
+	{
+		int common = Math.min(this.segments.length, other.segments.length);
+		for(int i=0; i<common; i++)
+		{
+			String a = this.segments[i];
+			String b = other.segments[i];
+			int result;
+
+			//Numbers: the longer one (without leading zeros) is the bigger one, same length compares digit by digit
+			if(i % 2 == 1 && a.length() != b.length()) result = a.length() - b.length();
+			else result = a.compareTo(b);
+
+			if(result != 0) return result;
+		}
+		if(this.segments.length != other.segments.length) return this.segments.length - other.segments.length;
+
+		// "file01" and "file1" have the same version, keep them in a fixed order
+		return this.name.compareTo(other.name);
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		return other instanceof VersionKey && this.name.equals(((VersionKey) other).name);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return this.name.hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.name;
+	}
+}